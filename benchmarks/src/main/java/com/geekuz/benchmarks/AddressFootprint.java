@@ -0,0 +1,93 @@
+package com.geekuz.benchmarks;
+
+import com.geekuz.entity.Address;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+
+/**
+ * Memory footprint report for {@link Address}: retained heap per address with city and country
+ * shared through dictionaries, against the same data held as four separate strings. Every value is a
+ * fresh string, as it would be after decoding JSON, and cities, zip codes and countries repeat
+ * the way they do in real user data.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.geekuz.benchmarks.AddressFootprint [addresses]
+ * </pre>
+ */
+public class AddressFootprint {
+    private static final int CITIES = 500;
+    private static final int ZIP_CODES = 20_000;
+    private static final int COUNTRIES = 20;
+
+    /** The layout Address had before: four separate strings. */
+    static final class PlainAddress {
+        String street;
+        String city;
+        String zipCode;
+        String country;
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long before = usedHeap();
+        PlainAddress[] plain = new PlainAddress[count];
+        for (int i = 0; i < count; i++) {
+            PlainAddress address = new PlainAddress();
+            address.street = street(i);
+            address.city = city(i);
+            address.zipCode = zipCode(i);
+            address.country = country(i);
+            plain[i] = address;
+        }
+        long plainBytes = usedHeap() - before;
+        Reference.reachabilityFence(plain);
+        plain = null;
+
+        before = usedHeap();
+        Address[] encoded = new Address[count];
+        for (int i = 0; i < count; i++) {
+            Address address = new Address();
+            address.setStreet(street(i));
+            address.setCity(city(i));
+            address.setZipCode(zipCode(i));
+            address.setCountry(country(i));
+            encoded[i] = address;
+        }
+        long encodedBytes = usedHeap() - before;
+
+        System.out.printf("addresses          %,d%n", count);
+        System.out.printf("plain strings      %,d bytes, %.1f per address%n", plainBytes, plainBytes / (double) count);
+        System.out.printf("shared             %,d bytes, %.1f per address%n", encodedBytes, encodedBytes / (double) count);
+        System.out.printf("saved              %.1f%%%n", 100.0 * (plainBytes - encodedBytes) / plainBytes);
+        System.out.printf("dictionaries       %,d cities, %,d countries, %,d chars%n",
+                Address.CITIES.size(), Address.COUNTRIES.size(), Address.CITIES.chars() + Address.COUNTRIES.chars());
+        Reference.reachabilityFence(encoded);
+    }
+
+    private static String street(int i) {
+        return i % 200 + " Street " + i;
+    }
+
+    private static String city(int i) {
+        return "City " + i % CITIES;
+    }
+
+    private static String zipCode(int i) {
+        return String.format("%06d", i % ZIP_CODES);
+    }
+
+    private static String country(int i) {
+        return "Country " + i % COUNTRIES;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,62 @@
+package com.geekuz.benchmarks;
+
+import com.geekuz.dto.AddressDTO;
+import com.geekuz.dto.UserDTO;
+import com.geekuz.json.JsonWriter;
+import com.geekuz.json.UserDTOEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding one {@link UserDTO} into a reused {@link JsonWriter}; with {@code -prof gc} the
+ * allocation rate should stay at zero.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+    private final UserDTOEncoder encoder = new UserDTOEncoder();
+    private final JsonWriter json = new JsonWriter(512);
+
+    private UserDTO user;
+
+    @Setup
+    public void setUp() {
+        AddressDTO address = new AddressDTO();
+        address.setFullAddress("12 Amir Temur Avenue, Uzbekistan");
+        address.setCity("Tashkent");
+        address.setZipCode("100000");
+
+        user = new UserDTO();
+        user.setId(42L);
+        user.setUsername("geek");
+        user.setEmail("geek@example.uz");
+        user.setBirthDate(LocalDate.of(1990, 5, 17));
+        user.setAddress(address);
+        user.setRoleNames(List.of("ADMIN", "USER"));
+        user.setAge(35);
+    }
+
+    @Benchmark
+    public int encodeUser() throws IOException {
+        json.reset();
+        encoder.write(json, user);
+        return json.size();
+    }
+}
@@ -0,0 +1,118 @@
+package com.geekuz.benchmarks;
+
+import com.geekuz.dto.AddressDTO;
+import com.geekuz.dto.UserDTO;
+import com.geekuz.entity.Address;
+import com.geekuz.entity.Role;
+import com.geekuz.entity.User;
+import com.geekuz.mapper.AddressMapper;
+import com.geekuz.mapper.UserMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions through the generated MapStruct mappers, one object at a time and in batches of
+ * {@value #BATCH_SIZE} users.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    private static final int BATCH_SIZE = 10_000;
+
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+    private final AddressMapper addressMapper = Mappers.getMapper(AddressMapper.class);
+
+    private User user;
+    private UserDTO userDTO;
+    private Address address;
+    private List<User> batch;
+
+    @Setup
+    public void setUp() {
+        address = new Address();
+        address.setStreet("12 Amir Temur Avenue");
+        address.setCity("Tashkent");
+        address.setZipCode("100000");
+        address.setCountry("Uzbekistan");
+
+        Role admin = new Role();
+        admin.setId(1L);
+        admin.setName("ADMIN");
+        Role user = new Role();
+        user.setId(2L);
+        user.setName("USER");
+
+        this.user = new User();
+        this.user.setId(42L);
+        this.user.setUsername("geek");
+        this.user.setEmail("geek@example.uz");
+        this.user.setPassword("secret");
+        this.user.setBirthDate(LocalDate.of(1990, 5, 17));
+        this.user.setAddress(address);
+        this.user.setRoles(List.of(admin, user));
+
+        userDTO = userMapper.userToUserDTO(this.user);
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            User copy = userMapper.copyUser(this.user);
+            copy.setId((long) i);
+            copy.setBirthDate(LocalDate.of(1950, 1, 1).plusDays(i));
+            batch.add(copy);
+        }
+    }
+
+    @Benchmark
+    public UserDTO userToUserDTO() {
+        return userMapper.userToUserDTO(user);
+    }
+
+    @Benchmark
+    public User userDTOToUser() {
+        return userMapper.userDTOToUser(userDTO);
+    }
+
+    @Benchmark
+    public Address addressRoundTrip() {
+        AddressDTO dto = addressMapper.addressToAddressDTO(address);
+        return addressMapper.addressDTOToAddress(dto);
+    }
+
+    @Benchmark
+    public List<UserDTO> batchOneByOne() {
+        List<UserDTO> dtos = new ArrayList<>();
+        for (User u : batch) {
+            dtos.add(userMapper.userToUserDTO(u));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<UserDTO> batchBulk() {
+        return userMapper.usersToUserDTOs(batch);
+    }
+
+    @Benchmark
+    public List<UserDTO> batchParallel() {
+        return userMapper.usersToUserDTOs(batch, ForkJoinPool.commonPool(), 1024);
+    }
+}
@@ -0,0 +1,71 @@
+package com.geekuz.benchmarks;
+
+import com.geekuz.http.HttpRequest;
+import com.geekuz.http.HttpRequestParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing one request head: the byte level parser used by {@code PureServer} against the
+ * original BufferedReader, readLine and split approach it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestParsingBenchmark {
+    private static final byte[] HELLO = "/api/hello".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] head = ("GET /api/hello?lang=uz HTTP/1.1\r\n"
+            + "Host: localhost:8080\r\n"
+            + "User-Agent: curl/8.5.0\r\n"
+            + "Accept: */*\r\n"
+            + "Accept-Encoding: gzip, deflate\r\n"
+            + "Connection: keep-alive\r\n"
+            + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    private final HttpRequest request = new HttpRequest();
+
+    @Benchmark
+    public void byteParser(Blackhole blackhole) {
+        blackhole.consume(HttpRequestParser.parse(head, 0, head.length, request));
+        blackhole.consume(request.method());
+        blackhole.consume(request.pathEquals(HELLO));
+    }
+
+    /** Same, but also materializes the path as a String like the old code did. */
+    @Benchmark
+    public void byteParserWithPathString(Blackhole blackhole) {
+        blackhole.consume(HttpRequestParser.parse(head, 0, head.length, request));
+        blackhole.consume(request.method());
+        blackhole.consume(request.path());
+    }
+
+    @Benchmark
+    public void readLineAndSplit(Blackhole blackhole) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(head)));
+        String[] parts = in.readLine().split(" ");
+        blackhole.consume(parts[0]);
+        blackhole.consume(parts[1]);
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            blackhole.consume(line);
+        }
+    }
+}
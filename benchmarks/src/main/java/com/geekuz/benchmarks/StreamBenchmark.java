@@ -0,0 +1,62 @@
+package com.geekuz.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The even-number sum from {@code Streams.demonstrateParallelStreams}, sequential against
+ * parallel, over boxed lists and primitive arrays of several sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private List<Integer> boxed;
+    private int[] primitive;
+
+    @Setup
+    public void setUp() {
+        boxed = IntStream.rangeClosed(1, size).boxed().toList();
+        primitive = IntStream.rangeClosed(1, size).toArray();
+    }
+
+    @Benchmark
+    public long boxedSequential() {
+        return boxed.stream().filter(n -> n % 2 == 0).mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long boxedParallel() {
+        return boxed.parallelStream().filter(n -> n % 2 == 0).mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    public long primitiveSequential() {
+        return Arrays.stream(primitive).filter(n -> n % 2 == 0).asLongStream().sum();
+    }
+
+    @Benchmark
+    public long primitiveParallel() {
+        return Arrays.stream(primitive).parallel().filter(n -> n % 2 == 0).asLongStream().sum();
+    }
+}
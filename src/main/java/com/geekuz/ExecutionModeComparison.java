@@ -0,0 +1,72 @@
+package com.geekuz;
+
+import com.geekuz.http.ExecutionMode;
+import com.geekuz.http.ServerOptions;
+import com.geekuz.loadgen.LoadGenerator;
+import com.geekuz.loadgen.LoadMode;
+import com.geekuz.loadgen.LoadOptions;
+import com.geekuz.loadgen.LoadResult;
+
+import java.io.IOException;
+
+/**
+ * Runs {@link PureServer} in every {@link ExecutionMode} against the same keep-alive client load
+ * and prints throughput and latency percentiles side by side. Latencies are response times
+ * corrected for coordinated omission, see {@link LoadGenerator}.
+ *
+ * Usage: ExecutionModeComparison [connections] [seconds] [rate]
+ * Without a rate the connections send back to back (closed loop); with one, requests are
+ * sent at that many per second (open loop).
+ */
+public class ExecutionModeComparison {
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int rate = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+        System.out.printf("%d keep-alive connections, %d s per mode, %s, Java %s%n", connections, seconds,
+                rate > 0 ? rate + " req/s open loop" : "closed loop", System.getProperty("java.version"));
+        System.out.printf("%-14s %12s %10s %10s %10s %8s%n", "mode", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+
+        int port = 18080;
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            if (mode == ExecutionMode.VIRTUAL && !ExecutionMode.isVirtualThreadsSupported()) {
+                System.out.printf("%-14s %s%n", mode, "skipped, needs Java 21");
+                continue;
+            }
+            ServerOptions options = new ServerOptions();
+            options.setExecutionMode(mode);
+            PureServer server = new PureServer(port, options);
+            Thread acceptor = new Thread(() -> {
+                try {
+                    server.start();
+                } catch (IOException e) {
+                    System.err.println("Server error: " + e.getMessage());
+                }
+            });
+            acceptor.start();
+            LoadGenerator.awaitListening("localhost", port);
+
+            LoadOptions load = new LoadOptions();
+            load.setPort(port);
+            load.setConnections(connections);
+            load.setDurationSeconds(seconds);
+            load.setWarmupSeconds(Math.min(2, seconds));
+            if (rate > 0) {
+                load.setMode(LoadMode.OPEN);
+                load.setRate(rate);
+            }
+            LoadResult result = new LoadGenerator(load).run();
+            server.stop();
+            acceptor.join();
+
+            System.out.printf("%-14s %12.0f %10.2f %10.2f %10.2f %8d%n", mode.name(), result.getThroughput(),
+                    result.getResponseTime().percentile(50) / 1000.0,
+                    result.getResponseTime().percentile(99) / 1000.0,
+                    result.getResponseTime().getMax() / 1000.0,
+                    result.getErrors());
+            port++;
+        }
+    }
+}
@@ -1,13 +1,35 @@
 package com.geekuz;
 
+import com.geekuz.http.ExecutionMode;
+import com.geekuz.http.HandlerThreads;
+import com.geekuz.http.ServerOptions;
+import com.geekuz.nio.NioServer;
+
 public class Main {
     public static void main(String[] args) {
+        // Usage: Main [blocking|nio|simple] [fixed|work-stealing|virtual|dispatcher]
+        String mode = args.length > 0 ? args[0] : "blocking";
+        ServerOptions options = new ServerOptions();
+        if (args.length > 1 && args[1].equals("dispatcher")) {
+            // Only meaningful for simple: handlers run on HttpServer's own thread
+            options.setHandlerThreads(HandlerThreads.DISPATCHER);
+        } else if (args.length > 1) {
+            options.setExecutionMode(ExecutionMode.parse(args[1]));
+        }
         try {
-            PureServer server = new PureServer(8080);
-            server.start();
+            if (mode.equals("nio")) {
+                NioServer server = new NioServer(8080, Runtime.getRuntime().availableProcessors(), options);
+                server.start();
+            } else if (mode.equals("simple")) {
+                SimpleServer server = new SimpleServer(8080, options);
+                server.start();
+            } else {
+                PureServer server = new PureServer(8080, options);
+                server.start();
+            }
         } catch (Exception e) {
             System.err.println("Server error: " + e.getMessage());
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
@@ -1,80 +1,202 @@
 package com.geekuz;
 
+import com.geekuz.http.BlockingConnection;
+import com.geekuz.http.CachedResponse;
+import com.geekuz.http.HttpResponses;
+import com.geekuz.http.RequestBuffer;
+import com.geekuz.http.Router;
+import com.geekuz.http.ServerOptions;
+import com.geekuz.http.Sockets;
+
 import java.io.*;
-import java.net.ServerSocket;
 import java.net.Socket;
-import java.nio.charset.StandardCharsets;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PureServer {
+    private static final int REQUEST_BUFFER_SIZE = 8192;
+
     private final int port;
-    private final ExecutorService threadPool;
-    private ServerSocket serverSocket;
-    private boolean running = false;
+    private final ServerOptions options;
+    private final Router router;
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final CachedResponse serviceUnavailable;
+    private volatile Acceptor[] acceptors = new Acceptor[0];
+    private volatile boolean running = false;
 
     public PureServer(int port) {
+        this(port, new ServerOptions());
+    }
+
+    public PureServer(int port, ServerOptions options) {
+        this(port, options, Routes.defaults());
+    }
+
+    public PureServer(int port, ServerOptions options, Router router) {
         this.port = port;
-        this.threadPool = Executors.newFixedThreadPool(10);
+        this.options = options;
+        this.router = router;
+        this.serviceUnavailable = HttpResponses.serviceUnavailable(options.getRetryAfterSeconds());
+        router.metrics().gauge("http_active_connections", "Connections being served or queued.", activeConnections::get);
+        router.metrics().gauge("http_queue_depth", "Connections waiting for a worker.", this::getQueueDepth);
     }
 
+    /**
+     * Opens the listening sockets and accepts connections on the calling thread until
+     * {@link #stop()}. Additional acceptors get their own threads.
+     */
     public void start() throws IOException {
-        serverSocket = new ServerSocket(port);
+        int count = Math.max(1, options.getAcceptors());
+        // Without SO_REUSEPORT the acceptors share one listening socket
+        boolean reusePort = count > 1 && Sockets.isReusePortSupported();
+        Acceptor[] created = new Acceptor[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                ServerSocketChannel channel = i == 0 || reusePort
+                        ? Sockets.listen(port, options, reusePort)
+                        : created[0].serverChannel;
+                created[i] = new Acceptor(i, channel);
+            }
+        } catch (IOException e) {
+            for (Acceptor acceptor : created) {
+                if (acceptor != null) {
+                    acceptor.close();
+                }
+            }
+            throw e;
+        }
+        acceptors = created;
         running = true;
-        System.out.println("Server started on port " + port);
-        
-        while (running) {
+        System.out.println("Server started on port " + port + " (" + options.getExecutionMode() + ", "
+                + count + (reusePort ? " SO_REUSEPORT" : "") + " acceptor" + (count > 1 ? "s" : "") + ")");
+
+        for (int i = 1; i < count; i++) {
+            new Thread(created[i], "acceptor-" + i).start();
+        }
+        created[0].run();
+    }
+
+    /**
+     * One accept loop with its own worker pool and queue.
+     */
+    private class Acceptor implements Runnable {
+        final ServerSocketChannel serverChannel;
+        final BlockingQueue<Runnable> queue;
+        final ExecutorService threadPool;
+
+        Acceptor(int index, ServerSocketChannel serverChannel) {
+            this.serverChannel = serverChannel;
+            this.queue = options.getQueueDiscipline().newQueue(options.getQueueCapacity());
+            this.threadPool = options.getExecutionMode().newExecutor(options.getWorkerThreads(), "worker-" + index, queue);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    SocketChannel channel = serverChannel.accept();
+                    try {
+                        Sockets.configure(channel, options);
+                    } catch (IOException e) {
+                        // Typically a peer that reset right after connecting
+                        try {
+                            channel.close();
+                        } catch (IOException suppressed) {
+                            e.addSuppressed(suppressed);
+                        }
+                        throw e;
+                    }
+                    admit(channel.socket());
+                } catch (IOException e) {
+                    if (running) {
+                        System.err.println("Error accepting connection: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Hands the connection to the worker pool, or answers 503 from the accept thread when
+         * too many connections are open or the pool's queue is full.
+         */
+        private void admit(Socket clientSocket) {
+            if (activeConnections.incrementAndGet() > options.getMaxConnections()) {
+                activeConnections.decrementAndGet();
+                reject(clientSocket);
+                return;
+            }
+            try {
+                threadPool.execute(() -> {
+                    try {
+                        handleConnection(clientSocket);
+                    } finally {
+                        activeConnections.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                activeConnections.decrementAndGet();
+                reject(clientSocket);
+            }
+        }
+
+        void close() {
+            threadPool.shutdown();
             try {
-                Socket clientSocket = serverSocket.accept();
-                threadPool.submit(() -> handleConnection(clientSocket));
+                serverChannel.close();
             } catch (IOException e) {
-                if (running) {
-                    System.err.println("Error accepting connection: " + e.getMessage());
-                }
+                System.err.println("Error closing server: " + e.getMessage());
             }
         }
     }
 
-    private void handleConnection(Socket clientSocket) {
-        try (
-            BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-            OutputStream out = clientSocket.getOutputStream()
-        ) {
-            // Read the request
-            String requestLine = in.readLine();
-            if (requestLine == null) return;
-            
-            // Parse the request line
-            String[] parts = requestLine.split(" ");
-            String method = parts[0];
-            String path = parts[1];
-            
-            // Skip headers
-            String line;
-            while ((line = in.readLine()) != null && !line.isEmpty()) {
-                // Skip headers
+    private void reject(Socket clientSocket) {
+        try (OutputStream out = clientSocket.getOutputStream()) {
+            out.write(serviceUnavailable.bytes(false));
+        } catch (IOException e) {
+            // The client is gone already
+        } finally {
+            try {
+                clientSocket.close();
+            } catch (IOException e) {
+                // Ignore
             }
-            
-            // Handle the request
-            if (method.equals("GET") && path.equals("/api/hello")) {
-                String response = "{\"message\": \"Hello, World!\"}";
-                String httpResponse = "HTTP/1.1 200 OK\r\n" +
-                                     "Content-Type: application/json\r\n" +
-                                     "Content-Length: " + response.length() + "\r\n" +
-                                     "\r\n" +
-                                     response;
-                out.write(httpResponse.getBytes(StandardCharsets.UTF_8));
-            } else {
-                String notFound = "Not Found";
-                String httpResponse = "HTTP/1.1 404 Not Found\r\n" +
-                                     "Content-Type: text/plain\r\n" +
-                                     "Content-Length: " + notFound.length() + "\r\n" +
-                                     "\r\n" +
-                                     notFound;
-                out.write(httpResponse.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Connections currently being served or waiting for a worker. */
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    /** Connections waiting for a worker; always 0 for modes without a queue. */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Acceptor acceptor : acceptors) {
+            depth += acceptor.queue.size();
+        }
+        return depth;
+    }
+
+    private void handleConnection(Socket clientSocket) {
+        try {
+            // Idle keep-alive connections are dropped after this timeout
+            clientSocket.setSoTimeout(options.getIdleTimeoutMillis());
+
+            BlockingConnection connection = new BlockingConnection(
+                    clientSocket, new RequestBuffer(REQUEST_BUFFER_SIZE), router, options);
+            int served = 0;
+            while (connection.serveOne(++served < options.getMaxRequestsPerConnection())) {
+                // Keep serving until the client or the handler ends the connection
             }
+        } catch (SocketTimeoutException e) {
+            // Idle timeout, just close
         } catch (IOException e) {
-            System.err.println("Error handling client: " + e.getMessage());
+            router.error("Error handling client: " + e.getMessage());
         } finally {
             try {
                 clientSocket.close();
@@ -86,13 +208,8 @@ public class PureServer {
 
     public void stop() {
         running = false;
-        threadPool.shutdown();
-        try {
-            if (serverSocket != null) {
-                serverSocket.close();
-            }
-        } catch (IOException e) {
-            System.err.println("Error closing server: " + e.getMessage());
+        for (Acceptor acceptor : acceptors) {
+            acceptor.close();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.geekuz;
+
+import com.geekuz.api.UserEndpoints;
+import com.geekuz.entity.Roles;
+import com.geekuz.http.CachedResponse;
+import com.geekuz.http.ResponseCompressor;
+import com.geekuz.http.Router;
+import com.geekuz.http.StaticFileHandler;
+import com.geekuz.logging.AccessLogField;
+import com.geekuz.logging.AccessLogOptions;
+import com.geekuz.logging.AsyncLogger;
+import com.geekuz.store.LogStore;
+import com.geekuz.store.LogStoreOptions;
+import com.geekuz.store.UserStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+/**
+ * The application's endpoints, shared by all server implementations.
+ */
+public final class Routes {
+    private static final CachedResponse HELLO =
+            new CachedResponse(200, "application/json", "{\"message\": \"Hello, World!\"}");
+
+    private Routes() {
+    }
+
+    public static Router defaults() {
+        Router router = new Router().compression(new ResponseCompressor());
+        router.get("/api/hello", (request, response) -> response.send(HELLO));
+        // Roles beyond ADMIN and USER, from -Droles=EDITOR,AUDITOR
+        for (String role : System.getProperty("roles", "").split(",")) {
+            if (!role.isBlank()) {
+                Roles.register(role.trim());
+            }
+        }
+        // Users are kept in memory only, unless -Dusers.dir names a directory to persist them in.
+        // With -Dusers.sync=true writes are on disk before they are answered. NioServer runs them
+        // on its workers, and concurrent writes share one force, so more workers (or virtual
+        // threads) mean larger batches.
+        String usersDir = System.getProperty("users.dir");
+        new UserEndpoints(usersDir != null ? userStore(usersDir) : new UserStore()).register(router);
+        router.get("/metrics", (request, response) ->
+                response.send(200, "text/plain; version=0.0.4", router.metrics().scrape()));
+        // Static assets and export files, from -Dstatic.dir (default ./static)
+        router.get("/static/{path*}", new StaticFileHandler(Paths.get(System.getProperty("static.dir", "static"))));
+        // Access log to -Daccess.log, with the columns from -Daccess.log.fields
+        String accessLog = System.getProperty("access.log");
+        if (accessLog != null) {
+            router.log(accessLog(accessLog, System.getProperty("access.log.fields")));
+        }
+        return router;
+    }
+
+    private static UserStore userStore(String directory) {
+        LogStoreOptions options = new LogStoreOptions();
+        options.setDirectory(Paths.get(directory));
+        try {
+            LogStore log = new LogStore(options);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    log.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing user log: " + e.getMessage());
+                }
+            }));
+            return new UserStore(log, Boolean.getBoolean("users.sync"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open user log in " + directory, e);
+        }
+    }
+
+    private static AsyncLogger accessLog(String file, String fields) {
+        AccessLogOptions options = new AccessLogOptions();
+        options.setFile(Paths.get(file));
+        if (fields != null) {
+            options.setFields(AccessLogField.parseList(fields));
+        }
+        try {
+            AsyncLogger log = new AsyncLogger(options);
+            // Write out whatever is still in the ring on exit
+            Runtime.getRuntime().addShutdownHook(new Thread(log::close));
+            return log;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open access log " + file, e);
+        }
+    }
+}
@@ -1,20 +1,64 @@
 package com.geekuz;
 
-import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
+import com.geekuz.http.HandlerThreads;
+import com.geekuz.http.HttpExchangeHandler;
+import com.geekuz.http.OffloadExecutor;
+import com.geekuz.http.Router;
+import com.geekuz.http.ServerOptions;
 import com.sun.net.httpserver.HttpServer;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class SimpleServer {
     private final HttpServer server;
+    private final HttpExchangeHandler handler;
+    private final OffloadExecutor executor;
+    // Only set when the pool was created here and is ours to shut down
+    private final ExecutorService ownedPool;
 
     public SimpleServer(int port) throws IOException {
-        server = HttpServer.create(new InetSocketAddress(port), 0);
-        server.createContext("/api/hello", new HelloHandler());
-        server.setExecutor(null);
+        this(port, new ServerOptions());
+    }
+
+    public SimpleServer(int port, ServerOptions options) throws IOException {
+        this(port, options, Routes.defaults());
+    }
+
+    /**
+     * Runs handlers as {@link ServerOptions#getHandlerThreads()} says: on the dispatcher thread,
+     * or on a pool bounded by the queue capacity.
+     */
+    public SimpleServer(int port, ServerOptions options, Router router) throws IOException {
+        this(port, options, router, options.getHandlerThreads() == HandlerThreads.POOL
+                ? options.getExecutionMode().newExecutor(options.getWorkerThreads(), "simple-worker",
+                        options.getQueueDiscipline().newQueue(options.getQueueCapacity()))
+                : null, true);
+    }
+
+    /**
+     * Runs handlers on {@code pool}, or on the dispatcher thread if it is null. Requests the pool
+     * rejects are answered with 503; the pool is not shut down by {@link #stop(int)}.
+     */
+    public SimpleServer(int port, ServerOptions options, Router router, Executor pool) throws IOException {
+        this(port, options, router, pool, false);
+    }
+
+    private SimpleServer(int port, ServerOptions options, Router router, Executor pool, boolean owned)
+            throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), options.getBacklog());
+        handler = new HttpExchangeHandler(router, options);
+        server.createContext("/", handler);
+        executor = new OffloadExecutor(pool);
+        ownedPool = owned ? (ExecutorService) pool : null;
+        server.setExecutor(executor);
+        router.metrics().gauge("http_in_flight", "Requests queued or being handled.", executor::getInFlight);
+        router.metrics().gauge("http_queue_depth", "Requests waiting for a worker.", executor::getQueueDepth);
+        router.metrics().counter("http_rejected_total", "Requests answered with 503 because the worker pool was full.",
+                executor::getRejected);
     }
 
     public void start() {
@@ -23,16 +67,40 @@ public class SimpleServer {
                 server.getAddress().getPort());
     }
 
-    static class HelloHandler implements HttpHandler {
-        @Override
-        public void handle(HttpExchange exchange) throws IOException {
-            String response = "{\"message\": \"Hello, World!\"}";
-            exchange.getResponseHeaders().set("Content-Type", "application/json");
-            exchange.sendResponseHeaders(200, response.length());
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public OffloadExecutor getExecutor() {
+        return executor;
+    }
 
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(response.getBytes());
+    /**
+     * Stops gracefully: new requests are answered with 503 and {@code Connection: close} while
+     * the ones already queued or running get up to {@code delaySeconds} to finish, then the
+     * listener and all connections are closed.
+     */
+    public void stop(int delaySeconds) {
+        handler.drain();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(delaySeconds);
+        try {
+            while (executor.getInFlight() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int abandoned = executor.getInFlight();
+        if (abandoned > 0) {
+            System.err.println("Stopping with " + abandoned + " requests still in flight");
         }
+        server.stop(0);
+        if (ownedPool != null) {
+            ownedPool.shutdownNow();
+        }
+    }
+
+    public void stop() {
+        stop(0);
     }
-}
\ No newline at end of file
+}
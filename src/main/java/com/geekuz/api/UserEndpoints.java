@@ -0,0 +1,310 @@
+package com.geekuz.api;
+
+import com.geekuz.dto.UserDTO;
+import com.geekuz.entity.User;
+import com.geekuz.entity.UserChanges;
+import com.geekuz.http.CachedResponse;
+import com.geekuz.http.Handler;
+import com.geekuz.http.HttpRequest;
+import com.geekuz.http.HttpResponse;
+import com.geekuz.http.Router;
+import com.geekuz.json.JsonReader;
+import com.geekuz.json.JsonWriter;
+import com.geekuz.json.UserDTODecoder;
+import com.geekuz.json.UserDTOEncoder;
+import com.geekuz.mapper.UserMapper;
+import com.geekuz.store.DuplicateUserException;
+import com.geekuz.store.UserStore;
+import org.mapstruct.factory.Mappers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * CRUD for users under {@code /api/users}, backed by a {@link UserStore} and converted with
+ * {@link UserMapper}:
+ *
+ * <pre>
+ * GET    /api/users?username=..|email=..|city=..  matching users as a JSON array
+ * GET    /api/users/export?after=..&amp;limit=..    users in id order as newline-delimited JSON
+ * GET    /api/users/{id}
+ * POST   /api/users          creates a user, 201 with Location
+ * PUT    /api/users/{id}     updates the fields present in the body
+ * DELETE /api/users/{id}
+ * </pre>
+ */
+public class UserEndpoints {
+    private static final String JSON = "application/json";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int EXPORT_BUFFER = 16 * 1024;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final CachedResponse NOT_FOUND = error(404, "User not found");
+    private static final CachedResponse BAD_ID = error(400, "Id must be a number");
+    private static final CachedResponse BAD_PAGE = error(400, "after and limit must be non-negative numbers");
+    private static final CachedResponse NO_FILTER = error(400, "Filter by username, email or city");
+    private static final CachedResponse NO_USERNAME = error(400, "username is required");
+    private static final CachedResponse TOO_LARGE = error(413, "Request body too large");
+
+    // Encoded on the request thread, then copied into the response
+    private static final ThreadLocal<JsonWriter> WRITERS = ThreadLocal.withInitial(() -> new JsonWriter(1024));
+
+    private final UserStore store;
+    private final UserMapper mapper;
+    private final UserDTOEncoder encoder = new UserDTOEncoder();
+    private final UserDTODecoder decoder = new UserDTODecoder();
+
+    public UserEndpoints(UserStore store) {
+        this(store, Mappers.getMapper(UserMapper.class));
+    }
+
+    public UserEndpoints(UserStore store, UserMapper mapper) {
+        this.store = store;
+        this.mapper = mapper;
+    }
+
+    public Router register(Router router) {
+        router.get("/api/users", this::find);
+        router.post("/api/users", write(this::create));
+        router.get("/api/users/export", this::export);
+        router.get("/api/users/{id}", this::get);
+        router.put("/api/users/{id}", write(this::update));
+        router.delete("/api/users/{id}", write(this::delete));
+        return router;
+    }
+
+    /** Writes to a durable store wait for the disk, so they must not run on an event loop. */
+    private Handler write(Handler handler) {
+        return store.isDurable() ? Handler.blocking(handler) : handler;
+    }
+
+    private void find(HttpRequest request, HttpResponse response) throws IOException {
+        List<User> users;
+        String username = request.queryParam("username");
+        String email = request.queryParam("email");
+        String city = request.queryParam("city");
+        if (username != null) {
+            users = single(store.findByUsername(username));
+        } else if (email != null) {
+            users = single(store.findByEmail(email));
+        } else if (city != null) {
+            users = store.findByCity(city);
+        } else {
+            response.send(NO_FILTER);
+            return;
+        }
+        JsonWriter json = writer();
+        json.beginArray();
+        for (User user : users) {
+            encoder.write(json, mapper.userToUserDTO(user));
+        }
+        json.endArray();
+        response.send(200, JSON, json.toByteArray());
+    }
+
+    /**
+     * Streams users with ids above {@code after} as newline-delimited JSON, each one mapped and
+     * written as the cursor reaches it, so memory stays flat however many there are. The first
+     * record is flushed on its own to get bytes to the client straight away. With a
+     * {@code limit}, the page end is found up front so the token for the next page can go in a
+     * {@code Link} header before the body starts.
+     */
+    private void export(HttpRequest request, HttpResponse response) {
+        long after = number(request.queryParam("after"));
+        long limit = number(request.queryParam("limit"));
+        if (after < 0 || limit < 0) {
+            response.send(BAD_PAGE);
+            return;
+        }
+        long last = Long.MAX_VALUE;
+        if (limit > 0) {
+            UserStore.Cursor probe = store.cursor(after);
+            User user = null;
+            last = after;
+            for (long i = 0; i < limit && (user = probe.next()) != null; i++) {
+                last = user.getId();
+            }
+            if (user != null && probe.next() != null) {
+                response.header("Link", "</api/users/export?after=" + last + "&limit=" + limit + ">; rel=\"next\"");
+            }
+        }
+        long end = last;
+        response.stream(200, NDJSON, out -> {
+            JsonWriter json = new JsonWriter(out, EXPORT_BUFFER);
+            UserStore.Cursor cursor = store.cursor(after);
+            boolean first = true;
+            User user;
+            while ((user = cursor.next()) != null && user.getId() <= end) {
+                encoder.write(json, mapper.userToUserDTO(user));
+                json.newline();
+                if (first) {
+                    json.flush();
+                    out.flush();
+                    first = false;
+                }
+            }
+            json.flush();
+        });
+    }
+
+    private void get(HttpRequest request, HttpResponse response) throws IOException {
+        long id = id(request);
+        if (id < 0) {
+            response.send(BAD_ID);
+            return;
+        }
+        User user = store.get(id);
+        if (user == null) {
+            response.send(NOT_FOUND);
+            return;
+        }
+        send(response, 200, user);
+    }
+
+    private void create(HttpRequest request, HttpResponse response) throws IOException {
+        UserDTO dto = readBody(request, response);
+        if (dto == null) {
+            return;
+        }
+        if (dto.getUsername() == null || dto.getUsername().isBlank()) {
+            response.send(NO_USERNAME);
+            return;
+        }
+        User user;
+        try {
+            user = mapper.userDTOToUser(dto);
+        } catch (IllegalArgumentException e) {
+            response.send(error(400, e.getMessage()));
+            return;
+        }
+        try {
+            store.insert(user);
+        } catch (DuplicateUserException e) {
+            response.send(conflict(e));
+            return;
+        }
+        response.header("Location", "/api/users/" + user.getId());
+        send(response, 201, user);
+    }
+
+    private void update(HttpRequest request, HttpResponse response) throws IOException {
+        long id = id(request);
+        if (id < 0) {
+            response.send(BAD_ID);
+            return;
+        }
+        UserDTO dto = readBody(request, response);
+        if (dto == null) {
+            return;
+        }
+        // Stored users are never modified in place, readers may be looking at them. If another
+        // update gets in between reading and replacing, the update is redone on top of it.
+        while (true) {
+            User current = store.get(id);
+            if (current == null) {
+                response.send(NOT_FOUND);
+                return;
+            }
+            UserChanges changes;
+            try {
+                changes = mapper.updateCopyFromDTO(dto, current);
+            } catch (IllegalArgumentException e) {
+                response.send(error(400, e.getMessage()));
+                return;
+            }
+            try {
+                if (store.replace(changes)) {
+                    send(response, 200, changes.after());
+                    return;
+                }
+            } catch (DuplicateUserException e) {
+                response.send(conflict(e));
+                return;
+            }
+        }
+    }
+
+    private void delete(HttpRequest request, HttpResponse response) {
+        long id = id(request);
+        if (id < 0) {
+            response.send(BAD_ID);
+        } else if (store.delete(id) == null) {
+            response.send(NOT_FOUND);
+        } else {
+            response.status(204);
+        }
+    }
+
+    private void send(HttpResponse response, int status, User user) throws IOException {
+        JsonWriter json = writer();
+        encoder.write(json, mapper.userToUserDTO(user));
+        response.send(status, JSON, json.toByteArray());
+    }
+
+    /** Reads and decodes the body, or answers the request and returns null if that fails. */
+    private UserDTO readBody(HttpRequest request, HttpResponse response) throws IOException {
+        if (request.contentLength() > MAX_BODY_BYTES) {
+            response.send(TOO_LARGE);
+            return null;
+        }
+        InputStream in = request.body();
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            response.send(TOO_LARGE);
+            return null;
+        }
+        try {
+            JsonReader reader = new JsonReader(body);
+            UserDTO dto = decoder.read(reader);
+            reader.endDocument();
+            return dto;
+        } catch (IllegalArgumentException e) {
+            response.send(error(400, e.getMessage()));
+            return null;
+        }
+    }
+
+    private static JsonWriter writer() {
+        JsonWriter json = WRITERS.get();
+        json.reset();
+        return json;
+    }
+
+    private static long id(HttpRequest request) {
+        try {
+            return Long.parseLong(request.pathParam("id"));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** A non-negative query parameter, 0 if absent, or -1 if it is not a number. */
+    private static long number(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Math.max(-1, Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static List<User> single(User user) {
+        return user != null ? List.of(user) : List.of();
+    }
+
+    private static CachedResponse conflict(DuplicateUserException e) {
+        return error(409, e.getMessage());
+    }
+
+    private static CachedResponse error(int status, String message) {
+        JsonWriter json = new JsonWriter(64);
+        try {
+            json.beginObject().name(JsonWriter.name("error")).string(message).endObject();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new CachedResponse(status, JSON, json.toByteArray());
+    }
+}
@@ -1,6 +1,11 @@
 package com.geekuz.entity;
 
 public class Address {
+    // Cities and countries repeat across users, so equal values share one string. Zip codes and
+    // streets are close to unique per user and are kept as they come.
+    public static final StringDictionary CITIES = new StringDictionary(10_000);
+    public static final StringDictionary COUNTRIES = new StringDictionary(1_000);
+    
     private String street;
     private String city;
     private String zipCode;
@@ -11,11 +16,11 @@ public class Address {
     public void setStreet(String street) { this.street = street; }
     
     public String getCity() { return city; }
-    public void setCity(String city) { this.city = city; }
+    public void setCity(String city) { this.city = CITIES.intern(city); }
     
     public String getZipCode() { return zipCode; }
     public void setZipCode(String zipCode) { this.zipCode = zipCode; }
     
     public String getCountry() { return country; }
-    public void setCountry(String country) { this.country = country; }
-}
\ No newline at end of file
+    public void setCountry(String country) { this.country = COUNTRIES.intern(country); }
+}
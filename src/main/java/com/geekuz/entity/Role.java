@@ -4,10 +4,21 @@ public class Role {
     private Long id;
     private String name;
     
+    public Role() {
+    }
+    
+    public Role(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+    
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
-}
\ No newline at end of file
+    
+    @Override
+    public String toString() { return name; }
+}
@@ -0,0 +1,119 @@
+package com.geekuz.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable set of registered {@link Roles}, held as a bitmask over role ids. There is one
+ * instance per distinct combination, so every user with the same roles shares the same set,
+ * along with its lists of roles and role names. Both lists are in id order and unmodifiable.
+ */
+public final class RoleSet {
+    private static final Map<Long, RoleSet> SETS = new ConcurrentHashMap<>();
+
+    public static final RoleSet EMPTY = of(0);
+
+    private final long bits;
+    private final List<Role> roles;
+    private final List<String> names;
+
+    private RoleSet(long bits) {
+        this.bits = bits;
+        List<Role> roles = new ArrayList<>(Long.bitCount(bits));
+        List<String> names = new ArrayList<>(Long.bitCount(bits));
+        for (long rest = bits; rest != 0; rest &= rest - 1) {
+            Role role = Roles.get(Long.numberOfTrailingZeros(rest));
+            roles.add(role);
+            names.add(role.getName());
+        }
+        this.roles = Collections.unmodifiableList(roles);
+        this.names = Collections.unmodifiableList(names);
+    }
+
+    /**
+     * The set with the roles whose ids are the bits set in {@code bits}.
+     *
+     * @throws IllegalArgumentException if a bit does not belong to a registered role
+     */
+    public static RoleSet of(long bits) {
+        RoleSet set = SETS.get(bits);
+        if (set != null) {
+            return set;
+        }
+        for (long rest = bits; rest != 0; rest &= rest - 1) {
+            if (Roles.get(Long.numberOfTrailingZeros(rest)) == null) {
+                throw new IllegalArgumentException("Unknown role id: " + Long.numberOfTrailingZeros(rest));
+            }
+        }
+        return SETS.computeIfAbsent(bits, RoleSet::new);
+    }
+
+    /**
+     * The set of the given roles, matched to registered ones by name; null for a null list.
+     *
+     * @throws IllegalArgumentException if a role is not registered
+     */
+    public static RoleSet of(List<Role> roles) {
+        if (roles == null) {
+            return null;
+        }
+        long bits = 0;
+        for (int i = 0; i < roles.size(); i++) {
+            bits |= bit(Roles.canonical(roles.get(i)));
+        }
+        return of(bits);
+    }
+
+    /**
+     * The set of the roles with the given names; null for a null list.
+     *
+     * @throws IllegalArgumentException if a name is not registered
+     */
+    public static RoleSet ofNames(List<String> names) {
+        if (names == null) {
+            return null;
+        }
+        long bits = 0;
+        for (int i = 0; i < names.size(); i++) {
+            bits |= bit(Roles.require(names.get(i)));
+        }
+        return of(bits);
+    }
+
+    public long bits() {
+        return bits;
+    }
+
+    public boolean contains(Role role) {
+        Role registered = Roles.get(role.getName());
+        return registered != null && (bits & bit(registered)) != 0;
+    }
+
+    public boolean isEmpty() {
+        return bits == 0;
+    }
+
+    public int size() {
+        return Long.bitCount(bits);
+    }
+
+    public List<Role> roles() {
+        return roles;
+    }
+
+    public List<String> names() {
+        return names;
+    }
+
+    private static long bit(Role role) {
+        return 1L << role.getId();
+    }
+
+    @Override
+    public String toString() {
+        return names.toString();
+    }
+}
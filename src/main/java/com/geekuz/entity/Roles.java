@@ -0,0 +1,104 @@
+package com.geekuz.entity;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the roles users can have, with one shared, unmodifiable {@link Role} per name. Each
+ * role gets an id from 1 to {@value #MAX_ID}, which is also its bit in a {@link RoleSet}, so the
+ * set of roles a user has fits in a long. ADMIN and USER are registered from the start.
+ */
+public final class Roles {
+    public static final int MAX_ID = 63;
+
+    public static final Role ADMIN;
+    public static final Role USER;
+
+    private static final Map<String, Role> BY_NAME = new ConcurrentHashMap<>();
+    // Copied on every registration, which happens a handful of times per process
+    private static volatile Role[] byId = new Role[1];
+
+    static {
+        ADMIN = register("ADMIN");
+        USER = register("USER");
+    }
+
+    private Roles() {
+    }
+
+    /**
+     * The shared role with this name, registering it under the next free id if it is new.
+     *
+     * @throws IllegalStateException if all {@value #MAX_ID} ids are taken
+     */
+    public static synchronized Role register(String name) {
+        Role role = BY_NAME.get(name);
+        if (role != null) {
+            return role;
+        }
+        int id = byId.length;
+        if (id > MAX_ID) {
+            throw new IllegalStateException("No more than " + MAX_ID + " roles can be registered");
+        }
+        role = new SharedRole(id, name.intern());
+        Role[] roles = Arrays.copyOf(byId, id + 1);
+        roles[id] = role;
+        byId = roles;
+        BY_NAME.put(role.getName(), role);
+        return role;
+    }
+
+    /** The shared role with this name, or null if there is none. */
+    public static Role get(String name) {
+        return name != null ? BY_NAME.get(name) : null;
+    }
+
+    /** The shared role with this id, or null if there is none. */
+    public static Role get(int id) {
+        Role[] roles = byId;
+        return id > 0 && id < roles.length ? roles[id] : null;
+    }
+
+    /**
+     * The shared instance for a role, which is looked up by name; the id of the given role is
+     * not used.
+     *
+     * @throws IllegalArgumentException if no role with that name is registered
+     */
+    public static Role canonical(Role role) {
+        if (role instanceof SharedRole) {
+            return role;
+        }
+        return require(role.getName());
+    }
+
+    /**
+     * The shared role with this name.
+     *
+     * @throws IllegalArgumentException if no role with that name is registered
+     */
+    public static Role require(String name) {
+        Role role = get(name);
+        if (role == null) {
+            throw new IllegalArgumentException("Unknown role: " + name);
+        }
+        return role;
+    }
+
+    private static final class SharedRole extends Role {
+        SharedRole(long id, String name) {
+            super(id, name);
+        }
+
+        @Override
+        public void setId(Long id) {
+            throw new UnsupportedOperationException("Registered roles cannot be changed");
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException("Registered roles cannot be changed");
+        }
+    }
+}
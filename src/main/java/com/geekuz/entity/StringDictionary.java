@@ -0,0 +1,63 @@
+package com.geekuz.entity;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares one instance of each distinct string, so values that repeat across millions of objects
+ * are stored once and the objects hold only a reference to it. Entries are never removed, so the
+ * dictionary stops growing at {@code maxSize} values; after that, new values are kept as the
+ * caller's own strings and only the ones already in the dictionary are shared. It is meant for
+ * columns with few distinct values, such as cities or countries, and the cap bounds what clients
+ * sending arbitrary values can make it hold.
+ *
+ * Lookups are lock-free; adding a new value takes a lock.
+ */
+public final class StringDictionary {
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private long chars;
+
+    public StringDictionary(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The shared instance equal to {@code value}, adding it if there is room; {@code value}
+     * itself if it is new and the dictionary is full.
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = values.get(value);
+        return shared != null ? shared : add(value);
+    }
+
+    /** Number of distinct values held. */
+    public int size() {
+        return values.size();
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /** Characters held across all values. */
+    public synchronized long chars() {
+        return chars;
+    }
+
+    private synchronized String add(String value) {
+        String existing = values.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (values.size() >= maxSize) {
+            return value;
+        }
+        values.put(value, value);
+        chars += value.length();
+        return value;
+    }
+}
@@ -10,7 +10,7 @@ public class User {
     private String password;
     private LocalDate birthDate;
     private Address address;
-    private List<Role> roles;
+    private RoleSet roles;
     
     // Getters and setters
     public Long getId() { return id; }
@@ -31,6 +31,16 @@ public class User {
     public Address getAddress() { return address; }
     public void setAddress(Address address) { this.address = address; }
     
-    public List<Role> getRoles() { return roles; }
-    public void setRoles(List<Role> roles) { this.roles = roles; }
+    // Roles are kept as a shared RoleSet, the list is the set's unmodifiable view
+    public List<Role> getRoles() { return roles != null ? roles.roles() : null; }
+    
+    /**
+     * Replaces the roles with the registered ones of the same names.
+     *
+     * @throws IllegalArgumentException if a role is not registered in {@link Roles}
+     */
+    public void setRoles(List<Role> roles) { this.roles = RoleSet.of(roles); }
+    
+    public RoleSet getRoleSet() { return roles; }
+    public void setRoleSet(RoleSet roles) { this.roles = roles; }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.geekuz.entity;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * What an update changed: the user before and after, and a bitmask of the {@link UserField}s
+ * whose values differ. Stores and caches use it to touch only what changed, and to skip updates
+ * that changed nothing.
+ */
+public final class UserChanges {
+    private static final UserField[] FIELDS = UserField.values();
+
+    private final User before;
+    private final User after;
+    private final int mask;
+
+    private UserChanges(User before, User after, int mask) {
+        this.before = before;
+        this.after = after;
+        this.mask = mask;
+    }
+
+    /** Compares every field of the two users. */
+    public static UserChanges between(User before, User after) {
+        int mask = 0;
+        for (UserField field : FIELDS) {
+            if (!field.same(before, after)) {
+                mask |= field.bit();
+            }
+        }
+        return new UserChanges(before, after, mask);
+    }
+
+    public User before() {
+        return before;
+    }
+
+    public User after() {
+        return after;
+    }
+
+    public int mask() {
+        return mask;
+    }
+
+    public boolean isEmpty() {
+        return mask == 0;
+    }
+
+    public boolean contains(UserField field) {
+        return (mask & field.bit()) != 0;
+    }
+
+    public Set<UserField> fields() {
+        Set<UserField> fields = EnumSet.noneOf(UserField.class);
+        for (UserField field : FIELDS) {
+            if (contains(field)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    public Object oldValue(UserField field) {
+        return field.get(before);
+    }
+
+    public Object newValue(UserField field) {
+        return field.get(after);
+    }
+
+    @Override
+    public String toString() {
+        return "UserChanges" + fields();
+    }
+}
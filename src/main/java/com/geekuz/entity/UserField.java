@@ -0,0 +1,49 @@
+package com.geekuz.entity;
+
+import java.util.Objects;
+
+/**
+ * The properties of a {@link User} that an update can change, each with its bit in a
+ * {@link UserChanges} mask.
+ */
+public enum UserField {
+    USERNAME,
+    EMAIL,
+    PASSWORD,
+    BIRTH_DATE,
+    ADDRESS,
+    ROLES;
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public Object get(User user) {
+        switch (this) {
+            case USERNAME: return user.getUsername();
+            case EMAIL: return user.getEmail();
+            case PASSWORD: return user.getPassword();
+            case BIRTH_DATE: return user.getBirthDate();
+            case ADDRESS: return user.getAddress();
+            default: return user.getRoleSet();
+        }
+    }
+
+    /** Whether the two users have the same value; addresses are compared field by field. */
+    boolean same(User a, User b) {
+        if (this != ADDRESS) {
+            // Role sets are interned, so equals is identity for them
+            return Objects.equals(get(a), get(b));
+        }
+        Address x = a.getAddress();
+        Address y = b.getAddress();
+        if (x == y) {
+            return true;
+        }
+        return x != null && y != null
+                && Objects.equals(x.getStreet(), y.getStreet())
+                && Objects.equals(x.getCity(), y.getCity())
+                && Objects.equals(x.getZipCode(), y.getZipCode())
+                && Objects.equals(x.getCountry(), y.getCountry());
+    }
+}
@@ -0,0 +1,111 @@
+package com.geekuz.http;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Serves requests on a connection with blocking socket streams: reads a request head, hands
+ * the handler a streaming view of the body, writes the response and skips whatever body the
+ * handler left unread so the next pipelined request can follow.
+ */
+public class BlockingConnection {
+    private final Router router;
+    private final ServerOptions options;
+    private final RequestBuffer buffer;
+    private final HttpRequest request;
+    private final HttpResponse response;
+    private final InputStream in;
+    private final OutputStream out;
+    // Null if the socket was not opened through a channel
+    private final WritableByteChannel channel;
+
+    public BlockingConnection(Socket socket, RequestBuffer buffer, Router router, ServerOptions options)
+            throws IOException {
+        this(socket, buffer, new HttpRequest(), new HttpResponse(), router, options);
+    }
+
+    /**
+     * @param buffer may already hold bytes received for this connection
+     */
+    public BlockingConnection(Socket socket, RequestBuffer buffer, HttpRequest request, HttpResponse response,
+                              Router router, ServerOptions options) throws IOException {
+        this.router = router;
+        this.options = options;
+        this.buffer = buffer;
+        this.request = request;
+        this.response = response;
+        this.in = socket.getInputStream();
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+        this.channel = socket.getChannel();
+    }
+
+    public OutputStream out() {
+        return out;
+    }
+
+    /**
+     * Reads and answers one request.
+     *
+     * @param mayKeepAlive false if this has to be the last request on the connection
+     * @return whether the connection stays open for another request
+     */
+    public boolean serveOne(boolean mayKeepAlive) throws IOException {
+        // Read until a complete request head is buffered
+        int headEnd;
+        while ((headEnd = buffer.findHeadEnd()) < 0) {
+            if (buffer.isFull()) {
+                out.write(HttpResponses.HEADERS_TOO_LARGE.bytes(false));
+                out.flush();
+                return false;
+            }
+            if (buffer.readFrom(in) < 0) {
+                return false;
+            }
+        }
+
+        // Parse the request head in place
+        long startNanos = System.nanoTime();
+        if (HttpRequestParser.parse(buffer.array(), 0, headEnd, request) <= 0) {
+            out.write(HttpResponses.BAD_REQUEST.bytes(false));
+            out.flush();
+            return false;
+        }
+        request.attachBody(buffer, headEnd, in);
+
+        Route route = router.dispatch(request, response);
+        return finish(route, headEnd, startNanos, request.isKeepAlive() && mayKeepAlive);
+    }
+
+    /**
+     * Writes the response of an already dispatched request and removes the request from the
+     * buffer. Used directly by servers that ran the handler themselves.
+     *
+     * @return whether the connection stays open for another request
+     */
+    public boolean finish(Route route, int headEnd, long startNanos, boolean keepAlive) throws IOException {
+        // HTTP/1.0 has no chunked encoding, a streamed body ends with the connection
+        keepAlive &= !response.isStreaming() || request.isHttp11();
+        long written = HttpResponses.write(request, response, keepAlive, out, options.getResponseChunkSize(),
+                channel);
+
+        long bodyBytes = 0;
+        if (request.body instanceof RequestBody) {
+            RequestBody body = (RequestBody) request.body;
+            // A body too large to skip leaves the connection out of sync, so it has to go
+            keepAlive &= body.drain();
+            bodyBytes = body.consumed();
+        }
+        router.record(request, route, response.getStatus(), headEnd + bodyBytes, written, startNanos);
+        buffer.consume(headEnd);
+
+        // Pipelined requests that are already buffered are answered before flushing
+        if (!keepAlive || buffer.findHeadEnd() < 0) {
+            out.flush();
+        }
+        return keepAlive;
+    }
+}
@@ -0,0 +1,14 @@
+package com.geekuz.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Produces a response body incrementally. The server calls it after the handler returned and
+ * sends whatever it writes with chunked transfer encoding, so the body never has to be held in
+ * memory as a whole. The request is no longer available at that point.
+ */
+@FunctionalInterface
+public interface BodyWriter {
+    void writeTo(OutputStream out) throws IOException;
+}
@@ -0,0 +1,134 @@
+package com.geekuz.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A response whose status line, headers and body are encoded once and written as a single
+ * array. Only the {@code Date} header changes over time; the encoded form is rebuilt the first
+ * time it is used after the {@link HttpDate} ticker moved on, i.e. at most once per second.
+ */
+public class CachedResponse {
+    private static final byte[] KEEP_ALIVE = "Connection: keep-alive\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CLOSE = "Connection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final int status;
+    private final String contentType;
+    private final byte[] body;
+    private final String[] headers;
+    private final byte[] fixedHead;
+    private volatile Encoded encoded;
+    // Identity, gzip and deflate variants carrying Vary, built on first use
+    private final AtomicReferenceArray<CachedResponse> variants = new AtomicReferenceArray<>(3);
+
+    /**
+     * @param headers extra headers as alternating names and values
+     */
+    public CachedResponse(int status, String contentType, byte[] body, String... headers) {
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+        this.headers = headers;
+
+        StringBuilder head = new StringBuilder(128);
+        head.append("HTTP/1.1 ").append(status).append(' ').append(HttpResponses.reason(status)).append("\r\n");
+        if (contentType != null) {
+            head.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        head.append("Content-Length: ").append(body.length).append("\r\n");
+        for (int i = 0; i < headers.length; i += 2) {
+            head.append(headers[i]).append(": ").append(headers[i + 1]).append("\r\n");
+        }
+        this.fixedHead = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    public CachedResponse(int status, String contentType, String body, String... headers) {
+        this(status, contentType, body.getBytes(StandardCharsets.UTF_8), headers);
+    }
+
+    public int getStatus() { return status; }
+
+    public String getContentType() { return contentType; }
+
+    public byte[] getBody() { return body; }
+
+    /** Extra headers as alternating names and values. */
+    public String[] getHeaders() { return headers; }
+
+    /**
+     * This response for a client accepting {@code encoding} (0, {@link HttpRequest#ENCODING_GZIP}
+     * or {@link HttpRequest#ENCODING_DEFLATE}), with {@code Vary: Accept-Encoding} added and the
+     * body compressed if that makes it smaller. The body is compressed only once per encoding.
+     */
+    public CachedResponse variant(int encoding, ResponseCompressor compressor) {
+        int index = encoding == HttpRequest.ENCODING_GZIP ? 1 : encoding == HttpRequest.ENCODING_DEFLATE ? 2 : 0;
+        CachedResponse variant = variants.get(index);
+        if (variant == null) {
+            String[] extra = Arrays.copyOf(headers, headers.length + 4);
+            extra[headers.length] = "Vary";
+            extra[headers.length + 1] = "Accept-Encoding";
+            byte[] compressed = index == 0 ? body : compressor.compress(body, encoding);
+            if (compressed.length < body.length) {
+                extra[headers.length + 2] = "Content-Encoding";
+                extra[headers.length + 3] = ResponseCompressor.name(encoding);
+                variant = new CachedResponse(status, contentType, compressed, extra);
+            } else {
+                variant = new CachedResponse(status, contentType, body, Arrays.copyOf(extra, headers.length + 2));
+            }
+            // Racing threads may both compress; the first result wins
+            if (!variants.compareAndSet(index, null, variant)) {
+                variant = variants.get(index);
+            }
+        }
+        return variant;
+    }
+
+    /**
+     * The complete response. Write {@link #headLength(boolean)} bytes of it to omit the body.
+     */
+    public byte[] bytes(boolean keepAlive) {
+        Encoded current = current();
+        return keepAlive ? current.keepAlive : current.close;
+    }
+
+    public int headLength(boolean keepAlive) {
+        return bytes(keepAlive).length - body.length;
+    }
+
+    private Encoded current() {
+        byte[] date = HttpDate.headerLine();
+        Encoded current = encoded;
+        if (current == null || current.date != date) {
+            // Racing threads may both rebuild; either result is correct
+            current = new Encoded(date, encode(date, KEEP_ALIVE), encode(date, CLOSE));
+            encoded = current;
+        }
+        return current;
+    }
+
+    private byte[] encode(byte[] date, byte[] connection) {
+        byte[] bytes = new byte[fixedHead.length + date.length + connection.length + body.length];
+        int pos = 0;
+        System.arraycopy(fixedHead, 0, bytes, pos, fixedHead.length);
+        pos += fixedHead.length;
+        System.arraycopy(date, 0, bytes, pos, date.length);
+        pos += date.length;
+        System.arraycopy(connection, 0, bytes, pos, connection.length);
+        pos += connection.length;
+        System.arraycopy(body, 0, bytes, pos, body.length);
+        return bytes;
+    }
+
+    private static final class Encoded {
+        final byte[] date;
+        final byte[] keepAlive;
+        final byte[] close;
+
+        Encoded(byte[] date, byte[] keepAlive, byte[] close) {
+            this.date = date;
+            this.keepAlive = keepAlive;
+            this.close = close;
+        }
+    }
+}
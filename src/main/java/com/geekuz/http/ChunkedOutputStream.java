@@ -0,0 +1,100 @@
+package com.geekuz.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Collects a streamed response body into batches of up to {@code chunkSize} bytes and sends
+ * each batch as one chunk, flushing the socket after it. For HTTP/1.0 clients the bytes are
+ * sent as they are and the end of the body is marked by closing the connection.
+ */
+class ChunkedOutputStream extends OutputStream {
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private final boolean chunked;
+    private final byte[] batch;
+    private int size;
+    private long written;
+    private boolean finished;
+
+    ChunkedOutputStream(OutputStream out, int chunkSize, boolean chunked) {
+        this.out = out;
+        this.chunked = chunked;
+        this.batch = new byte[Math.max(64, chunkSize)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (size == batch.length) {
+            sendBatch();
+        }
+        batch[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (size == batch.length) {
+                sendBatch();
+            }
+            int n = Math.min(len, batch.length - size);
+            System.arraycopy(b, off, batch, size, n);
+            size += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /** Sends what has been written so far as a chunk right away. */
+    @Override
+    public void flush() throws IOException {
+        sendBatch();
+    }
+
+    /** Ends the body; the underlying stream stays open for the next response. */
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        sendBatch();
+        finished = true;
+        if (chunked) {
+            out.write(LAST_CHUNK);
+            written += LAST_CHUNK.length;
+        }
+        out.flush();
+    }
+
+    long written() {
+        return written;
+    }
+
+    private void sendBatch() throws IOException {
+        if (size == 0) {
+            return;
+        }
+        if (finished) {
+            throw new IOException("Response body already finished");
+        }
+        if (chunked) {
+            byte[] header = (Integer.toHexString(size) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+            out.write(header);
+            out.write(batch, 0, size);
+            out.write(CRLF);
+            written += header.length + size + CRLF.length;
+        } else {
+            out.write(batch, 0, size);
+            written += size;
+        }
+        size = 0;
+        out.flush();
+    }
+}
@@ -0,0 +1,76 @@
+package com.geekuz.http;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How a server runs its connection handlers.
+ */
+public enum ExecutionMode {
+    /** A fixed number of platform threads. */
+    FIXED,
+    /** A fork-join pool with one queue per worker that idle workers steal from. */
+    WORK_STEALING,
+    /** A new virtual thread per task; needs a Java 21 runtime. */
+    VIRTUAL;
+
+    public ExecutorService newExecutor(int threads, String namePrefix) {
+        return newExecutor(threads, namePrefix, new LinkedBlockingQueue<>());
+    }
+
+    /**
+     * Creates the executor for this mode. Only {@link #FIXED} queues tasks in {@code queue}; it
+     * rejects new tasks once the queue is full. The other modes have no queue to bound.
+     */
+    public ExecutorService newExecutor(int threads, String namePrefix, BlockingQueue<Runnable> queue) {
+        switch (this) {
+            case FIXED:
+                return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue,
+                        namedThreads(namePrefix), new ThreadPoolExecutor.AbortPolicy());
+            case WORK_STEALING:
+                return Executors.newWorkStealingPool(threads);
+            case VIRTUAL:
+                return newVirtualThreadPerTaskExecutor();
+            default:
+                throw new IllegalStateException("Unknown execution mode " + this);
+        }
+    }
+
+    public static boolean isVirtualThreadsSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    public static ExecutionMode parse(String value) {
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+
+    // Looked up reflectively so the project still compiles for Java 17
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or newer, running on "
+                    + System.getProperty("java.version"));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create virtual thread executor", e);
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> new Thread(runnable, prefix + "-" + counter.getAndIncrement());
+    }
+}
@@ -0,0 +1,58 @@
+package com.geekuz.http;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A slice of an open file sent as a response body with {@code FileChannel.transferTo}, so the
+ * bytes go from the page cache to the socket without passing through the Java heap. The region
+ * holds a reference on the cached file until {@link #release()}.
+ */
+public final class FileRegion {
+    private final OpenFileCache.OpenFile file;
+    private final long count;
+    private long position;
+    private long remaining;
+    private boolean released;
+
+    FileRegion(OpenFileCache.OpenFile file, long position, long count) {
+        this.file = file;
+        this.position = position;
+        this.count = count;
+        this.remaining = count;
+    }
+
+    /** Length of the region, the response's Content-Length. */
+    public long count() { return count; }
+
+    public boolean isDone() { return remaining == 0; }
+
+    /**
+     * Sends as much of the rest of the region as {@code target} takes. On a non-blocking
+     * channel this may be 0.
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        long n = file.channel().transferTo(position, remaining, target);
+        if (n <= 0 && position >= file.channel().size()) {
+            throw new IOException("File truncated while sending");
+        }
+        position += n;
+        remaining -= n;
+        return n;
+    }
+
+    /** Sends the rest of the region to a blocking channel. */
+    public void transferFully(WritableByteChannel target) throws IOException {
+        while (remaining > 0) {
+            transferTo(target);
+        }
+    }
+
+    /** Gives the file reference back; safe to call more than once. */
+    public void release() {
+        if (!released) {
+            released = true;
+            file.release();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.geekuz.http;
+
+import java.io.IOException;
+
+/**
+ * Application code behind a route. Handlers fill in the response; the server that received the
+ * request takes care of writing it, so the same handler runs unchanged on every server.
+ */
+@FunctionalInterface
+public interface Handler {
+    void handle(HttpRequest request, HttpResponse response) throws IOException;
+
+    /**
+     * Whether the handler may wait, for example for a write to reach the disk. Servers that run
+     * handlers on an event loop hand such requests to a worker, so the wait does not hold up
+     * every other connection on the loop.
+     */
+    default boolean isBlocking() {
+        return false;
+    }
+
+    /** {@code handler}, marked as {@link #isBlocking() blocking}. */
+    static Handler blocking(Handler handler) {
+        return new Handler() {
+            @Override
+            public void handle(HttpRequest request, HttpResponse response) throws IOException {
+                handler.handle(request, response);
+            }
+
+            @Override
+            public boolean isBlocking() {
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.geekuz.http;
+
+/**
+ * Where {@code SimpleServer} runs its handlers.
+ */
+public enum HandlerThreads {
+    /**
+     * On the {@code HttpServer} dispatcher thread itself. Cheapest for tiny handlers, but one
+     * slow request stalls every other client.
+     */
+    DISPATCHER,
+    /**
+     * On a pool built from the {@link ExecutionMode}, worker count and queue settings; requests
+     * the pool cannot take are answered with 503.
+     */
+    POOL;
+
+    public static HandlerThreads parse(String value) {
+        return valueOf(value.trim().toUpperCase());
+    }
+}
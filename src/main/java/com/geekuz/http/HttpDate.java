@@ -0,0 +1,61 @@
+package com.geekuz.http;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The current {@code Date} header line. A daemon ticker re-renders it once per second, so
+ * request threads only do a volatile read instead of formatting a date per response.
+ */
+public final class HttpDate {
+    private static final DateTimeFormatter FORMAT =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    private static volatile byte[] current = render();
+
+    static {
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-date");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long untilNextSecond = 1000 - System.currentTimeMillis() % 1000;
+        ticker.scheduleAtFixedRate(() -> current = render(), untilNextSecond, 1000, TimeUnit.MILLISECONDS);
+    }
+
+    private HttpDate() {
+    }
+
+    /**
+     * The header line including its CRLF. A new array is published on every tick, so callers
+     * may compare references to see whether the second has changed.
+     */
+    public static byte[] headerLine() {
+        return current;
+    }
+
+    public static String format(long epochMillis) {
+        return FORMAT.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    /** Parses an IMF-fixdate as sent in conditional headers, or returns -1 if it is not one. */
+    public static long parse(String value) {
+        try {
+            return Instant.from(FORMAT.parse(value.trim())).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] render() {
+        return ("Date: " + FORMAT.format(ZonedDateTime.now(ZoneOffset.UTC)) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,225 @@
+package com.geekuz.http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Plugs a {@link Router} into the JDK's {@code HttpServer}, so {@code SimpleServer} serves the
+ * same handlers as the servers that parse HTTP themselves.
+ */
+public class HttpExchangeHandler implements HttpHandler {
+    private final Router router;
+    private final int chunkSize;
+    private final CachedResponse serviceUnavailable;
+    private volatile boolean draining;
+
+    public HttpExchangeHandler(Router router) {
+        this(router, new ServerOptions());
+    }
+
+    public HttpExchangeHandler(Router router, ServerOptions options) {
+        this.router = router;
+        this.chunkSize = options.getResponseChunkSize();
+        this.serviceUnavailable = HttpResponses.serviceUnavailable(options.getRetryAfterSeconds());
+    }
+
+    /**
+     * From now on answers new requests with 503 and closes their connections, so only the
+     * exchanges already in flight are still served while the server shuts down.
+     */
+    public void drain() {
+        draining = true;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        long startNanos = System.nanoTime();
+        HttpRequest request = new HttpRequest();
+        URI uri = exchange.getRequestURI();
+        request.set(methodOf(exchange.getRequestMethod()), uri.getRawPath(), uri.getRawQuery());
+        // HttpExchange already takes care of the body's framing
+        Headers requestHeaders = exchange.getRequestHeaders();
+        String contentLength = requestHeaders.getFirst("Content-Length");
+        long length = -1;
+        if (contentLength != null) {
+            byte[] bytes = contentLength.trim().getBytes(StandardCharsets.ISO_8859_1);
+            length = HttpRequestParser.parseLength(bytes, 0, bytes.length);
+        }
+        boolean badLength = contentLength != null && length < 0;
+        request.contentLength = length;
+        request.chunked = "chunked".equalsIgnoreCase(requestHeaders.getFirst("Transfer-Encoding"));
+        CountingInputStream in = new CountingInputStream(exchange.getRequestBody());
+        request.body = in;
+        request.setConditionals(requestHeaders.getFirst("Range"), requestHeaders.getFirst("If-Modified-Since"));
+        for (String value : requestHeaders.getOrDefault("Accept-Encoding", List.of())) {
+            byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+            request.acceptEncoding |= HttpRequestParser.acceptEncoding(bytes, 0, bytes.length);
+        }
+
+        HttpResponse response = new HttpResponse();
+        Route route = null;
+        if (badLength) {
+            // Rejected the same way the servers that parse HTTP themselves do
+            response.send(HttpResponses.BAD_REQUEST);
+            response.header("Connection", "close");
+        } else if (draining || OffloadExecutor.isShedding()) {
+            // Running on the dispatcher thread, or shutting down: answer without dispatching
+            response.send(serviceUnavailable);
+            response.header("Connection", "close");
+        } else {
+            route = router.dispatch(request, response);
+        }
+
+        Headers headers = exchange.getResponseHeaders();
+        if (response.getContentType() != null) {
+            headers.set("Content-Type", response.getContentType());
+        }
+        List<String> extra = response.getHeaders();
+        for (int i = 0; i < extra.size(); i += 2) {
+            headers.add(extra.get(i), extra.get(i + 1));
+        }
+
+        if (response.isStreaming()) {
+            stream(exchange, request, in, response, route, startNanos);
+            return;
+        }
+        if (response.getFile() != null) {
+            sendFile(exchange, request, in, response, route, startNanos);
+            return;
+        }
+
+        byte[] body = response.getBody();
+        boolean noBody = body.length == 0 || request.method() == HttpMethod.HEAD;
+        // A length of 0 would mean chunked to HttpExchange, -1 means no body
+        exchange.sendResponseHeaders(response.getStatus(), noBody ? -1 : body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (!noBody) {
+                os.write(body);
+            }
+        }
+        router.record(request, route, response.getStatus(), bytesIn(request, in), noBody ? 0 : body.length,
+                startNanos);
+    }
+
+    private void stream(HttpExchange exchange, HttpRequest request, CountingInputStream in, HttpResponse response,
+                        Route route, long startNanos) throws IOException {
+        if (request.method() == HttpMethod.HEAD) {
+            exchange.sendResponseHeaders(response.getStatus(), -1);
+            exchange.close();
+            router.record(request, route, response.getStatus(), bytesIn(request, in), 0, startNanos);
+            return;
+        }
+        exchange.sendResponseHeaders(response.getStatus(), 0);
+        CountingOutputStream counted = new CountingOutputStream(exchange.getResponseBody());
+        try (OutputStream os = new BufferedOutputStream(counted, chunkSize)) {
+            response.getStream().writeTo(os);
+        }
+        router.record(request, route, response.getStatus(), bytesIn(request, in), counted.count, startNanos);
+    }
+
+    /**
+     * HttpExchange only offers a stream, so the file is copied through it instead of being
+     * transferred to the socket directly.
+     */
+    private void sendFile(HttpExchange exchange, HttpRequest request, CountingInputStream in, HttpResponse response,
+                          Route route, long startNanos) throws IOException {
+        FileRegion file = response.getFile();
+        try {
+            if (request.method() == HttpMethod.HEAD) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(file.count()));
+                exchange.sendResponseHeaders(response.getStatus(), -1);
+                exchange.close();
+                router.record(request, route, response.getStatus(), bytesIn(request, in), 0, startNanos);
+                return;
+            }
+            exchange.sendResponseHeaders(response.getStatus(), file.count());
+            try (OutputStream os = exchange.getResponseBody()) {
+                file.transferFully(Channels.newChannel(os));
+            }
+            router.record(request, route, response.getStatus(), bytesIn(request, in), file.count(), startNanos);
+        } finally {
+            file.release();
+        }
+    }
+
+    /**
+     * Request body bytes: HttpServer does not expose the head, and skips whatever body the
+     * handler left unread, so a known length counts in full and a chunked body as far as read.
+     */
+    private static long bytesIn(HttpRequest request, CountingInputStream in) {
+        return request.contentLength >= 0 ? request.contentLength : in.count;
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static HttpMethod methodOf(String name) {
+        try {
+            return HttpMethod.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
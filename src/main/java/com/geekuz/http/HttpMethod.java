@@ -0,0 +1,33 @@
+package com.geekuz.http;
+
+import java.nio.charset.StandardCharsets;
+
+public enum HttpMethod {
+    GET, HEAD, POST, PUT, DELETE, PATCH, OPTIONS;
+
+    private static final HttpMethod[] VALUES = values();
+
+    private final byte[] bytes = name().getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Looks up the method whose name is {@code buf[from, to)} without creating a String.
+     * Returns null for methods we do not know.
+     */
+    static HttpMethod of(byte[] buf, int from, int to) {
+        int length = to - from;
+        for (HttpMethod method : VALUES) {
+            byte[] name = method.bytes;
+            if (name.length != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && buf[from + i] == name[i]) {
+                i++;
+            }
+            if (i == length) {
+                return method;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,230 @@
+package com.geekuz.http;
+
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A parsed request head. Instances are reused from request to request on the same connection;
+ * the path and query are kept as offsets into the receive buffer and only turned into Strings
+ * when somebody asks for them, so they are only valid while the request is being handled.
+ */
+public class HttpRequest {
+    public static final int ENCODING_GZIP = 1;
+    public static final int ENCODING_DEFLATE = 2;
+
+    static final int CONNECTION_DEFAULT = 0;
+    static final int CONNECTION_CLOSE = 1;
+    static final int CONNECTION_KEEP_ALIVE = 2;
+
+    HttpMethod method;
+    int minorVersion;
+    byte[] buf;
+    int pathStart;
+    int pathEnd;
+    int queryStart;
+    int queryEnd;
+    long contentLength;
+    boolean chunked;
+    int connection;
+    int acceptEncoding;
+    int rangeStart;
+    int rangeEnd;
+    int ifModifiedSinceStart;
+    int ifModifiedSinceEnd;
+
+    // Path parameters as start/end offsets into buf, in template order
+    int[] params = new int[8];
+    int paramCount;
+    String[] paramNames;
+    InputStream body;
+
+    private String path;
+    private String query;
+    private String range;
+    private String ifModifiedSince;
+
+    void reset(byte[] buf) {
+        this.buf = buf;
+        method = null;
+        minorVersion = 0;
+        pathStart = pathEnd = queryStart = queryEnd = 0;
+        rangeStart = rangeEnd = ifModifiedSinceStart = ifModifiedSinceEnd = 0;
+        contentLength = -1;
+        chunked = false;
+        connection = CONNECTION_DEFAULT;
+        acceptEncoding = 0;
+        paramCount = 0;
+        paramNames = null;
+        body = null;
+        path = null;
+        query = null;
+        range = null;
+        ifModifiedSince = null;
+    }
+
+    /**
+     * Fills the request from an already parsed form, for servers that do their own parsing.
+     */
+    public void set(HttpMethod method, String path, String query) {
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        reset(pathBytes);
+        this.method = method;
+        this.minorVersion = 1;
+        this.pathEnd = pathBytes.length;
+        this.path = path;
+        this.query = query;
+    }
+
+    /** Sets the conditional headers for servers that do their own parsing. */
+    void setConditionals(String range, String ifModifiedSince) {
+        this.range = range;
+        this.ifModifiedSince = ifModifiedSince;
+    }
+
+    void addParam(int from, int to) {
+        if (paramCount * 2 == params.length) {
+            params = Arrays.copyOf(params, params.length * 2);
+        }
+        params[paramCount * 2] = from;
+        params[paramCount * 2 + 1] = to;
+        paramCount++;
+    }
+
+    /** The request method, or null if it is not one of {@link HttpMethod}. */
+    public HttpMethod method() { return method; }
+
+    public boolean isHttp11() { return minorVersion == 1; }
+
+    /** Value of Content-Length, or -1 if the header was absent. */
+    public long contentLength() { return contentLength; }
+
+    public boolean isChunked() { return chunked; }
+
+    /** Whether the request carries a body, by Content-Length or chunked transfer encoding. */
+    public boolean hasBody() { return chunked || contentLength > 0; }
+
+    /**
+     * The request body as it arrives from the client; it must be read before the handler
+     * returns. Whatever is left unread is skipped by the server.
+     */
+    public InputStream body() {
+        return body != null ? body : InputStream.nullInputStream();
+    }
+
+    public ReadableByteChannel bodyChannel() {
+        return Channels.newChannel(body());
+    }
+
+    /**
+     * Attaches the body that follows the head at {@code headEnd} in {@code buffer}.
+     *
+     * @param in supplies the rest of the body, or null if it is completely buffered
+     */
+    public void attachBody(RequestBuffer buffer, int headEnd, InputStream in) {
+        if (hasBody()) {
+            body = new RequestBody(buffer, headEnd, in, contentLength, chunked);
+        }
+    }
+
+    /** Bitmask of {@link #ENCODING_GZIP} and {@link #ENCODING_DEFLATE} accepted by the client. */
+    public int acceptEncoding() { return acceptEncoding; }
+
+    public boolean isKeepAlive() {
+        if (connection == CONNECTION_CLOSE) {
+            return false;
+        }
+        return connection == CONNECTION_KEEP_ALIVE || minorVersion == 1;
+    }
+
+    public boolean pathEquals(byte[] expected) {
+        int length = pathEnd - pathStart;
+        if (expected.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buf[pathStart + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String path() {
+        if (path == null) {
+            path = new String(buf, pathStart, pathEnd - pathStart, StandardCharsets.UTF_8);
+        }
+        return path;
+    }
+
+    /** Value of the {@code {name}} segment of the matched route template, or null. */
+    public String pathParam(String name) {
+        if (paramNames == null) {
+            return null;
+        }
+        for (int i = 0; i < paramNames.length && i < paramCount; i++) {
+            if (paramNames[i].equals(name)) {
+                return new String(buf, params[i * 2], params[i * 2 + 1] - params[i * 2], StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /** The raw query string without the leading '?', or null if there is none. */
+    public String query() {
+        if (query == null && queryEnd > queryStart) {
+            query = new String(buf, queryStart, queryEnd - queryStart, StandardCharsets.UTF_8);
+        }
+        return query;
+    }
+
+    /**
+     * The first value of query parameter {@code name}, form-decoded ('+' is a space), or null if
+     * it is absent.
+     */
+    public String queryParam(String name) {
+        String query = query();
+        if (query == null) {
+            return null;
+        }
+        int from = 0;
+        while (from <= query.length()) {
+            int to = query.indexOf('&', from);
+            if (to < 0) {
+                to = query.length();
+            }
+            int equals = query.indexOf('=', from);
+            int nameEnd = equals >= 0 && equals < to ? equals : to;
+            if (nameEnd - from == name.length() && query.startsWith(name, from)) {
+                try {
+                    return nameEnd == to ? "" : URLDecoder.decode(query.substring(nameEnd + 1, to), StandardCharsets.UTF_8);
+                } catch (IllegalArgumentException e) {
+                    // Broken percent escape, treat as absent
+                    return null;
+                }
+            }
+            from = to + 1;
+        }
+        return null;
+    }
+
+    /** The Range header, or null if there is none. */
+    public String range() {
+        if (range == null && rangeEnd > rangeStart) {
+            range = new String(buf, rangeStart, rangeEnd - rangeStart, StandardCharsets.ISO_8859_1);
+        }
+        return range;
+    }
+
+    /** The If-Modified-Since header, or null if there is none. */
+    public String ifModifiedSince() {
+        if (ifModifiedSince == null && ifModifiedSinceEnd > ifModifiedSinceStart) {
+            ifModifiedSince = new String(buf, ifModifiedSinceStart, ifModifiedSinceEnd - ifModifiedSinceStart,
+                    StandardCharsets.ISO_8859_1);
+        }
+        return ifModifiedSince;
+    }
+}
@@ -0,0 +1,299 @@
+package com.geekuz.http;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Byte level parser for HTTP/1.x request heads. It works directly on the receive buffer and
+ * records offsets in a reusable {@link HttpRequest}, so parsing a request allocates nothing.
+ * Only the headers the servers act on are interpreted; the rest are validated and skipped.
+ */
+public final class HttpRequestParser {
+    public static final int INCOMPLETE = 0;
+    public static final int MALFORMED = -1;
+
+    private static final byte[] CONTENT_LENGTH = lower("Content-Length");
+    private static final byte[] CONNECTION = lower("Connection");
+    private static final byte[] ACCEPT_ENCODING = lower("Accept-Encoding");
+    private static final byte[] TRANSFER_ENCODING = lower("Transfer-Encoding");
+    private static final byte[] RANGE = lower("Range");
+    private static final byte[] IF_MODIFIED_SINCE = lower("If-Modified-Since");
+    private static final byte[] CLOSE = lower("close");
+    private static final byte[] KEEP_ALIVE = lower("keep-alive");
+    private static final byte[] GZIP = lower("gzip");
+    private static final byte[] DEFLATE = lower("deflate");
+    private static final byte[] CHUNKED = lower("chunked");
+
+    private HttpRequestParser() {
+    }
+
+    /**
+     * Parses the request head in {@code buf[from, to)}.
+     *
+     * @return the number of bytes the head occupies including the terminating blank line,
+     *         {@link #INCOMPLETE} if more bytes are needed, or {@link #MALFORMED}
+     */
+    public static int parse(byte[] buf, int from, int to, HttpRequest request) {
+        request.reset(buf);
+        int pos = from;
+
+        // Method
+        int start = pos;
+        while (pos < to && buf[pos] >= 'A' && buf[pos] <= 'Z') {
+            pos++;
+        }
+        if (pos == to) {
+            return INCOMPLETE;
+        }
+        if (pos == start || buf[pos] != ' ') {
+            return MALFORMED;
+        }
+        request.method = HttpMethod.of(buf, start, pos);
+        pos++;
+
+        // Request target: path and optional query
+        if (pos == to) {
+            return INCOMPLETE;
+        }
+        if (buf[pos] != '/') {
+            return MALFORMED;
+        }
+        request.pathStart = pos;
+        int queryMark = -1;
+        while (pos < to && buf[pos] != ' ') {
+            byte b = buf[pos];
+            if (b <= 0x20 || b == 0x7f) {
+                return MALFORMED;
+            }
+            if (b == '?' && queryMark < 0) {
+                queryMark = pos;
+            }
+            pos++;
+        }
+        if (pos == to) {
+            return INCOMPLETE;
+        }
+        if (queryMark >= 0) {
+            request.pathEnd = queryMark;
+            request.queryStart = queryMark + 1;
+            request.queryEnd = pos;
+        } else {
+            request.pathEnd = pos;
+        }
+        pos++;
+
+        // Version: HTTP/1.0 or HTTP/1.1 followed by CRLF
+        if (to - pos < 10) {
+            return INCOMPLETE;
+        }
+        if (buf[pos] != 'H' || buf[pos + 1] != 'T' || buf[pos + 2] != 'T' || buf[pos + 3] != 'P'
+                || buf[pos + 4] != '/' || buf[pos + 5] != '1' || buf[pos + 6] != '.'
+                || (buf[pos + 7] != '0' && buf[pos + 7] != '1')
+                || buf[pos + 8] != '\r' || buf[pos + 9] != '\n') {
+            return MALFORMED;
+        }
+        request.minorVersion = buf[pos + 7] - '0';
+        pos += 10;
+
+        // Headers until the blank line
+        while (true) {
+            if (to - pos < 2) {
+                return INCOMPLETE;
+            }
+            if (buf[pos] == '\r') {
+                if (buf[pos + 1] != '\n') {
+                    return MALFORMED;
+                }
+                return pos + 2 - from;
+            }
+
+            int nameStart = pos;
+            while (pos < to && buf[pos] != ':') {
+                byte b = buf[pos];
+                if (b <= 0x20 || b == 0x7f) {
+                    // Includes obsolete line folding and whitespace before the colon
+                    return MALFORMED;
+                }
+                pos++;
+            }
+            if (pos == to) {
+                return INCOMPLETE;
+            }
+            int nameEnd = pos;
+            if (nameEnd == nameStart) {
+                return MALFORMED;
+            }
+            pos++;
+
+            while (pos < to && (buf[pos] == ' ' || buf[pos] == '\t')) {
+                pos++;
+            }
+            int valueStart = pos;
+            while (pos < to && buf[pos] != '\r') {
+                if (buf[pos] == '\n') {
+                    return MALFORMED;
+                }
+                pos++;
+            }
+            if (to - pos < 2) {
+                return INCOMPLETE;
+            }
+            if (buf[pos + 1] != '\n') {
+                return MALFORMED;
+            }
+            int valueEnd = pos;
+            while (valueEnd > valueStart && (buf[valueEnd - 1] == ' ' || buf[valueEnd - 1] == '\t')) {
+                valueEnd--;
+            }
+            pos += 2;
+
+            if (!header(buf, nameStart, nameEnd, valueStart, valueEnd, request)) {
+                return MALFORMED;
+            }
+        }
+    }
+
+    private static boolean header(byte[] buf, int nameStart, int nameEnd, int valueStart, int valueEnd,
+                                  HttpRequest request) {
+        if (equalsLower(buf, nameStart, nameEnd, CONTENT_LENGTH)) {
+            long length = parseLength(buf, valueStart, valueEnd);
+            // Framed by both Content-Length and Transfer-Encoding is ambiguous (request smuggling)
+            if (length < 0 || request.chunked || (request.contentLength >= 0 && request.contentLength != length)) {
+                return false;
+            }
+            request.contentLength = length;
+        } else if (equalsLower(buf, nameStart, nameEnd, CONNECTION)) {
+            int tokenStart = valueStart;
+            for (int i = valueStart; i <= valueEnd; i++) {
+                if (i == valueEnd || buf[i] == ',') {
+                    int s = trimStart(buf, tokenStart, i);
+                    int e = trimEnd(buf, s, i);
+                    if (equalsLower(buf, s, e, CLOSE)) {
+                        request.connection = HttpRequest.CONNECTION_CLOSE;
+                    } else if (equalsLower(buf, s, e, KEEP_ALIVE) && request.connection != HttpRequest.CONNECTION_CLOSE) {
+                        request.connection = HttpRequest.CONNECTION_KEEP_ALIVE;
+                    }
+                    tokenStart = i + 1;
+                }
+            }
+        } else if (equalsLower(buf, nameStart, nameEnd, ACCEPT_ENCODING)) {
+            request.acceptEncoding |= acceptEncoding(buf, valueStart, valueEnd);
+        } else if (equalsLower(buf, nameStart, nameEnd, TRANSFER_ENCODING)) {
+            // Only the final coding matters for framing, and unless it is chunked the body has no
+            // known end (RFC 9112, section 6.1); neither does one that also has a Content-Length
+            int e = trimEnd(buf, valueStart, valueEnd);
+            int s = e;
+            while (s > valueStart && buf[s - 1] != ',') {
+                s--;
+            }
+            if (!equalsLower(buf, trimStart(buf, s, e), e, CHUNKED) || request.contentLength >= 0) {
+                return false;
+            }
+            request.chunked = true;
+        } else if (equalsLower(buf, nameStart, nameEnd, RANGE)) {
+            request.rangeStart = valueStart;
+            request.rangeEnd = valueEnd;
+        } else if (equalsLower(buf, nameStart, nameEnd, IF_MODIFIED_SINCE)) {
+            request.ifModifiedSinceStart = valueStart;
+            request.ifModifiedSinceEnd = valueEnd;
+        }
+        return true;
+    }
+
+    /** Bitmask of the encodings an Accept-Encoding value accepts. */
+    static int acceptEncoding(byte[] buf, int from, int to) {
+        int accepted = 0;
+        int tokenStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || buf[i] == ',') {
+                accepted |= encoding(buf, tokenStart, i);
+                tokenStart = i + 1;
+            }
+        }
+        return accepted;
+    }
+
+    /** Returns the encoding bit for one Accept-Encoding element, honouring an explicit q=0. */
+    private static int encoding(byte[] buf, int from, int to) {
+        int s = trimStart(buf, from, to);
+        int e = s;
+        while (e < to && buf[e] != ';' && buf[e] != ' ' && buf[e] != '\t') {
+            e++;
+        }
+        int bit;
+        if (equalsLower(buf, s, e, GZIP)) {
+            bit = HttpRequest.ENCODING_GZIP;
+        } else if (equalsLower(buf, s, e, DEFLATE)) {
+            bit = HttpRequest.ENCODING_DEFLATE;
+        } else {
+            return 0;
+        }
+        // Look for q=0, q=0.0, q=0.00 ...
+        for (int i = e; i + 2 < to; i++) {
+            if ((buf[i] | 0x20) == 'q' && buf[i + 1] == '=') {
+                int j = i + 2;
+                if (buf[j] != '0') {
+                    return bit;
+                }
+                j++;
+                if (j < to && buf[j] == '.') {
+                    j++;
+                }
+                while (j < to && buf[j] == '0') {
+                    j++;
+                }
+                return j < to && buf[j] >= '1' && buf[j] <= '9' ? bit : 0;
+            }
+        }
+        return bit;
+    }
+
+    /** A Content-Length value: digits only, at most 18 of them; -1 if it is anything else. */
+    static long parseLength(byte[] buf, int from, int to) {
+        if (from == to || to - from > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buf[i];
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private static boolean equalsLower(byte[] buf, int from, int to, byte[] lower) {
+        if (to - from != lower.length) {
+            return false;
+        }
+        for (int i = 0; i < lower.length; i++) {
+            byte b = buf[from + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != lower[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int trimStart(byte[] buf, int from, int to) {
+        while (from < to && (buf[from] == ' ' || buf[from] == '\t')) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(byte[] buf, int from, int to) {
+        while (to > from && (buf[to - 1] == ' ' || buf[to - 1] == '\t')) {
+            to--;
+        }
+        return to;
+    }
+
+    private static byte[] lower(String s) {
+        return s.toLowerCase().getBytes(StandardCharsets.US_ASCII);
+    }
+}
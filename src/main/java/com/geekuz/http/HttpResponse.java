@@ -0,0 +1,131 @@
+package com.geekuz.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Response filled in by a {@link Handler}. Like {@link HttpRequest} it is reused for every
+ * request on a connection.
+ */
+public class HttpResponse {
+    private static final byte[] EMPTY = new byte[0];
+
+    private int status;
+    private String contentType;
+    private byte[] body;
+    private CachedResponse cached;
+    private BodyWriter stream;
+    private FileRegion file;
+    private final List<String> headers = new ArrayList<>();
+
+    public HttpResponse() {
+        reset();
+    }
+
+    void reset() {
+        status = 200;
+        contentType = null;
+        body = EMPTY;
+        cached = null;
+        stream = null;
+        releaseFile();
+        headers.clear();
+    }
+
+    private void releaseFile() {
+        if (file != null) {
+            file.release();
+            file = null;
+        }
+    }
+
+    public HttpResponse status(int status) {
+        this.status = status;
+        return this;
+    }
+
+    public HttpResponse header(String name, String value) {
+        headers.add(name);
+        headers.add(value);
+        return this;
+    }
+
+    public void send(int status, String contentType, byte[] body) {
+        this.cached = null;
+        this.stream = null;
+        releaseFile();
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+    }
+
+    public void send(int status, String contentType, String body) {
+        send(status, contentType, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a pre-encoded response; servers doing their own framing write its bytes unchanged.
+     */
+    public void send(CachedResponse response) {
+        this.cached = response;
+        this.stream = null;
+        releaseFile();
+        this.status = response.getStatus();
+        this.contentType = response.getContentType();
+        this.body = response.getBody();
+        headers.clear();
+        Collections.addAll(headers, response.getHeaders());
+    }
+
+    /**
+     * Sends a body produced by {@code writer} once the handler has returned, with chunked
+     * transfer encoding instead of a Content-Length.
+     */
+    public void stream(int status, String contentType, BodyWriter writer) {
+        this.cached = null;
+        this.status = status;
+        this.contentType = contentType;
+        this.body = EMPTY;
+        this.stream = writer;
+        releaseFile();
+    }
+
+    /**
+     * Sends a region of a file. The server releases the region once it has been written, or
+     * right away if the body is not sent at all.
+     */
+    public void sendFile(int status, String contentType, FileRegion region) {
+        releaseFile();
+        this.cached = null;
+        this.stream = null;
+        this.status = status;
+        this.contentType = contentType;
+        this.body = EMPTY;
+        this.file = region;
+    }
+
+    public int getStatus() { return status; }
+
+    public String getContentType() { return contentType; }
+
+    public byte[] getBody() { return body; }
+
+    /** The pre-encoded response passed to {@link #send(CachedResponse)}, or null. */
+    public CachedResponse getCached() { return cached; }
+
+    /** The writer passed to {@link #stream}, or null. */
+    public BodyWriter getStream() { return stream; }
+
+    public boolean isStreaming() { return stream != null; }
+
+    /** The region passed to {@link #sendFile}, or null. */
+    public FileRegion getFile() { return file; }
+
+    /** Length of the body as announced in Content-Length. */
+    public long getContentLength() { return file != null ? file.count() : body.length; }
+
+    /** Extra headers as alternating names and values. */
+    public List<String> getHeaders() { return headers; }
+}
@@ -0,0 +1,145 @@
+package com.geekuz.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Encodes responses onto the wire for the servers that do their own HTTP framing.
+ */
+public final class HttpResponses {
+    /** Response for request heads the parser rejected; the connection is closed afterwards. */
+    public static final CachedResponse BAD_REQUEST = new CachedResponse(400, "text/plain", "Bad Request");
+    /** Response for request heads that do not fit into the receive buffer. */
+    public static final CachedResponse HEADERS_TOO_LARGE =
+            new CachedResponse(431, "text/plain", "Request Header Fields Too Large");
+
+    private static final byte[] KEEP_ALIVE = "Connection: keep-alive\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CLOSE = "Connection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+    private HttpResponses() {
+    }
+
+    /**
+     * Status line and headers for a handler's response, including the blank line.
+     */
+    public static byte[] head(HttpResponse response, boolean keepAlive) {
+        StringBuilder head = new StringBuilder(128);
+        head.append("HTTP/1.1 ").append(response.getStatus()).append(' ').append(reason(response.getStatus())).append("\r\n");
+        if (response.getContentType() != null) {
+            head.append("Content-Type: ").append(response.getContentType()).append("\r\n");
+        }
+        if (response.getStatus() == 304 || response.getStatus() == 204) {
+            // No body and no length for these
+        } else if (!response.isStreaming()) {
+            head.append("Content-Length: ").append(response.getContentLength()).append("\r\n");
+        } else if (keepAlive) {
+            // Without keep-alive the end of a streamed body is marked by closing the connection
+            head.append("Transfer-Encoding: chunked\r\n");
+        }
+        List<String> headers = response.getHeaders();
+        for (int i = 0; i < headers.size(); i += 2) {
+            head.append(headers.get(i)).append(": ").append(headers.get(i + 1)).append("\r\n");
+        }
+        byte[] date = HttpDate.headerLine();
+        byte[] connection = keepAlive ? KEEP_ALIVE : CLOSE;
+        byte[] bytes = new byte[head.length() + date.length + connection.length];
+        int pos = head.length();
+        for (int i = 0; i < pos; i++) {
+            bytes[i] = (byte) head.charAt(i);
+        }
+        System.arraycopy(date, 0, bytes, pos, date.length);
+        System.arraycopy(connection, 0, bytes, pos + date.length, connection.length);
+        return bytes;
+    }
+
+    /**
+     * Writes the response for {@code request}, leaving out the body for HEAD requests.
+     *
+     * @return the number of bytes written
+     */
+    public static long write(HttpRequest request, HttpResponse response, boolean keepAlive, OutputStream out)
+            throws IOException {
+        return write(request, response, keepAlive, out, DEFAULT_CHUNK_SIZE, null);
+    }
+
+    /**
+     * Like {@link #write(HttpRequest, HttpResponse, boolean, OutputStream)}; streamed bodies are
+     * sent in chunks of up to {@code chunkSize} bytes. Streamed responses are only chunked on
+     * keep-alive connections, so callers should not keep HTTP/1.0 connections open for them.
+     * File bodies go straight to {@code channel} when the socket has one, otherwise they are
+     * copied through {@code out}.
+     */
+    public static long write(HttpRequest request, HttpResponse response, boolean keepAlive, OutputStream out,
+                             int chunkSize, WritableByteChannel channel) throws IOException {
+        boolean withBody = request.method() != HttpMethod.HEAD;
+        CachedResponse cached = response.getCached();
+        if (cached != null) {
+            byte[] bytes = cached.bytes(keepAlive);
+            int length = withBody ? bytes.length : cached.headLength(keepAlive);
+            out.write(bytes, 0, length);
+            return length;
+        }
+        byte[] head = head(response, keepAlive);
+        out.write(head);
+        if (!withBody) {
+            if (response.getFile() != null) {
+                response.getFile().release();
+            }
+            return head.length;
+        }
+        FileRegion file = response.getFile();
+        if (file != null) {
+            try {
+                if (channel != null) {
+                    out.flush();
+                } else {
+                    channel = Channels.newChannel(out);
+                }
+                file.transferFully(channel);
+                return head.length + file.count();
+            } finally {
+                file.release();
+            }
+        }
+        if (response.isStreaming()) {
+            ChunkedOutputStream body = new ChunkedOutputStream(out, chunkSize, keepAlive);
+            response.getStream().writeTo(body);
+            body.finish();
+            return head.length + body.written();
+        }
+        out.write(response.getBody());
+        return head.length + response.getBody().length;
+    }
+
+    public static String reason(int status) {
+        switch (status) {
+            case 200: return "OK";
+            case 201: return "Created";
+            case 204: return "No Content";
+            case 206: return "Partial Content";
+            case 304: return "Not Modified";
+            case 400: return "Bad Request";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 409: return "Conflict";
+            case 413: return "Payload Too Large";
+            case 416: return "Range Not Satisfiable";
+            case 431: return "Request Header Fields Too Large";
+            case 500: return "Internal Server Error";
+            case 501: return "Not Implemented";
+            case 503: return "Service Unavailable";
+            default: return status < 400 ? "OK" : "Error";
+        }
+    }
+
+    /** Response for connections turned away by admission control. */
+    public static CachedResponse serviceUnavailable(int retryAfterSeconds) {
+        return new CachedResponse(503, "text/plain", "Service Unavailable",
+                "Retry-After", String.valueOf(retryAfterSeconds));
+    }
+}
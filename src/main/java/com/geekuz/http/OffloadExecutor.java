@@ -0,0 +1,73 @@
+package com.geekuz.http;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The executor {@code SimpleServer} hands its exchanges to. Tasks go to {@code pool}, or run on
+ * the calling dispatcher thread when there is none. A task the pool rejects also runs on the
+ * dispatcher thread, but marked as shed, so {@link HttpExchangeHandler} answers it with a 503
+ * straight away instead of dispatching it. Tasks are counted from submission until they finish,
+ * which is what {@code stop(delay)} waits for.
+ */
+public class OffloadExecutor implements Executor {
+    private static final ThreadLocal<Boolean> SHEDDING = new ThreadLocal<>();
+
+    private final Executor pool;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param pool the executor handlers run on, or null to run them on the dispatcher thread
+     */
+    public OffloadExecutor(Executor pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        inFlight.incrementAndGet();
+        if (pool == null) {
+            run(task);
+            return;
+        }
+        try {
+            pool.execute(() -> run(task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            SHEDDING.set(Boolean.TRUE);
+            try {
+                run(task);
+            } finally {
+                SHEDDING.remove();
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /** Whether the current thread is running a task the pool rejected. */
+    static boolean isShedding() {
+        return SHEDDING.get() != null;
+    }
+
+    /** Exchanges queued or being handled. */
+    public int getInFlight() { return inFlight.get(); }
+
+    /** Exchanges answered with 503 because the pool was full. */
+    public long getRejected() { return rejected.sum(); }
+
+    /** Exchanges waiting for a pool thread; 0 unless the pool is a {@link ThreadPoolExecutor}. */
+    public int getQueueDepth() {
+        return pool instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) pool).getQueue().size() : 0;
+    }
+}
@@ -0,0 +1,170 @@
+package com.geekuz.http;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps recently served files open so hot assets cost neither an open() nor a stat() per
+ * request. Entries are evicted least recently used first and re-validated against the file's
+ * size and modification time at most once per {@code revalidateMillis}. Open files are
+ * reference counted: an evicted file stays open until the last response sending it is done.
+ */
+public class OpenFileCache {
+    private final int capacity;
+    private final long revalidateNanos;
+    private final LinkedHashMap<Path, OpenFile> files = new LinkedHashMap<>(16, 0.75f, true);
+
+    public OpenFileCache(int capacity, long revalidateMillis) {
+        this.capacity = capacity;
+        this.revalidateNanos = TimeUnit.MILLISECONDS.toNanos(revalidateMillis);
+    }
+
+    /**
+     * Returns the open file with a reference held for the caller, who has to
+     * {@link OpenFile#release()} it.
+     *
+     * @throws NoSuchFileException if there is no regular file at {@code path}
+     */
+    public OpenFile acquire(Path path) throws IOException {
+        synchronized (files) {
+            OpenFile file = files.get(path);
+            if (file != null) {
+                if (System.nanoTime() - file.validatedAt < revalidateNanos || file.isCurrent()) {
+                    file.retain();
+                    return file;
+                }
+                files.remove(path);
+                file.release();
+            }
+        }
+
+        // Open outside the lock; a concurrent miss for the same path just opens it twice
+        OpenFile opened = OpenFile.open(path);
+        synchronized (files) {
+            OpenFile previous = files.put(path, opened);
+            if (previous != null) {
+                previous.release();
+            }
+            opened.retain();
+            evict();
+        }
+        return opened;
+    }
+
+    public int size() {
+        synchronized (files) {
+            return files.size();
+        }
+    }
+
+    /** Closes every file no response is using any more. */
+    public void clear() {
+        synchronized (files) {
+            for (OpenFile file : files.values()) {
+                file.release();
+            }
+            files.clear();
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Path, OpenFile>> it = files.entrySet().iterator();
+        while (files.size() > capacity && it.hasNext()) {
+            OpenFile eldest = it.next().getValue();
+            it.remove();
+            eldest.release();
+        }
+    }
+
+    /** An open file with the attributes it was validated with. */
+    public static final class OpenFile {
+        private final Path path;
+        // With every symbolic link resolved; the channel is opened on this
+        private final Path realPath;
+        private final FileChannel channel;
+        private final long size;
+        private final long lastModified;
+        // One reference belongs to the cache itself
+        private final AtomicInteger references = new AtomicInteger(1);
+        private volatile long validatedAt;
+
+        private OpenFile(Path path, Path realPath, FileChannel channel, long size, long lastModified) {
+            this.path = path;
+            this.realPath = realPath;
+            this.channel = channel;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.validatedAt = System.nanoTime();
+        }
+
+        static OpenFile open(Path path) throws IOException {
+            Path realPath = path.toRealPath();
+            FileChannel channel = FileChannel.open(realPath, StandardOpenOption.READ);
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(realPath, BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) {
+                    throw new NoSuchFileException(path.toString(), null, "Not a regular file");
+                }
+                return new OpenFile(path, realPath, channel, attributes.size(), attributes.lastModifiedTime().toMillis());
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        public FileChannel channel() { return channel; }
+
+        /** The file actually opened, with symbolic links resolved. */
+        public Path realPath() { return realPath; }
+
+        public long size() { return size; }
+
+        public long lastModified() { return lastModified; }
+
+        /** A region of this file for a response; it takes over the caller's reference. */
+        public FileRegion region(long position, long count) {
+            return new FileRegion(this, position, count);
+        }
+
+        boolean isCurrent() {
+            try {
+                // A link pointed somewhere else counts as a change too
+                if (!path.toRealPath().equals(realPath)) {
+                    return false;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(realPath, BasicFileAttributes.class);
+                if (attributes.isRegularFile() && attributes.size() == size && attributes.lastModifiedTime().toMillis() == lastModified) {
+                    validatedAt = System.nanoTime();
+                    return true;
+                }
+            } catch (IOException e) {
+                // Deleted or unreadable, open it again
+            }
+            return false;
+        }
+
+        void retain() {
+            references.incrementAndGet();
+        }
+
+        public void release() {
+            if (references.decrementAndGet() == 0) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+}
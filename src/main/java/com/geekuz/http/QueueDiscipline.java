@@ -0,0 +1,52 @@
+package com.geekuz.http;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.SynchronousQueue;
+
+/**
+ * Order in which queued connections are picked up by the worker pool.
+ */
+public enum QueueDiscipline {
+    /** Oldest first; fair, but under overload every request waits behind the whole queue. */
+    FIFO,
+    /** Newest first; connections that just arrived are served quickly while old ones absorb the delay. */
+    LIFO;
+
+    public BlockingQueue<Runnable> newQueue(int capacity) {
+        if (capacity <= 0) {
+            // No queueing at all, a task is either handed to an idle worker or rejected
+            return new SynchronousQueue<>();
+        }
+        return this == FIFO ? new ArrayBlockingQueue<>(capacity) : new LifoQueue(capacity);
+    }
+
+    /**
+     * Bounded deque that inserts at the head, so {@code ThreadPoolExecutor} (which takes from the
+     * head) runs the most recently submitted task next.
+     */
+    private static class LifoQueue extends LinkedBlockingDeque<Runnable> {
+        private static final long serialVersionUID = 1L;
+
+        LifoQueue(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        public boolean offer(Runnable task) {
+            return offerFirst(task);
+        }
+
+        @Override
+        public boolean add(Runnable task) {
+            addFirst(task);
+            return true;
+        }
+
+        @Override
+        public void put(Runnable task) throws InterruptedException {
+            putFirst(task);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.geekuz.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Request body framed by Content-Length or chunked transfer encoding. Bytes that arrived with
+ * the request head are taken from the connection's {@link RequestBuffer} first; the rest is read
+ * from the socket through the free part of that same buffer, so a body of any size is streamed
+ * with constant memory and bytes of a pipelined follow-up request are never lost.
+ */
+final class RequestBody extends InputStream {
+    private static final int DRAIN_LIMIT = 64 * 1024;
+    private static final int MAX_CHUNK_LINE = 4096;
+
+    private final RequestBuffer buffer;
+    private final int start;
+    private final InputStream in;
+    private final boolean chunked;
+    private int pos;
+    // Bytes left in the body, or in the current chunk
+    private long remaining;
+    private boolean eof;
+    private long consumed;
+
+    /**
+     * @param start offset in the buffer where the body begins, i.e. the end of the request head
+     * @param in    the socket stream, or null if the whole body is already buffered
+     */
+    RequestBody(RequestBuffer buffer, int start, InputStream in, long contentLength, boolean chunked) {
+        this.buffer = buffer;
+        this.start = start;
+        this.pos = start;
+        this.in = in;
+        this.chunked = chunked;
+        this.remaining = chunked ? 0 : Math.max(0, contentLength);
+        this.eof = !chunked && remaining == 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (eof) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (chunked && remaining == 0) {
+            readChunkSize();
+            if (eof) {
+                return -1;
+            }
+        }
+        if (buffered() == 0 && fill() < 0) {
+            throw new EOFException("Request body truncated");
+        }
+        int n = (int) Math.min(Math.min(len, remaining), buffered());
+        System.arraycopy(buffer.array(), pos, b, off, n);
+        pos += n;
+        consumed += n;
+        remaining -= n;
+        if (remaining == 0) {
+            if (chunked) {
+                expect('\r');
+                expect('\n');
+            } else {
+                eof = true;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return eof ? 0 : (int) Math.min(buffered(), remaining);
+    }
+
+    /**
+     * Skips what the handler left unread, up to a limit, and releases the buffered body bytes.
+     *
+     * @return false if the body could not be skipped and the connection has to be closed
+     */
+    boolean drain() {
+        try {
+            byte[] scratch = new byte[1024];
+            long skipped = 0;
+            while (!eof && skipped < DRAIN_LIMIT) {
+                int n = read(scratch, 0, scratch.length);
+                if (n > 0) {
+                    skipped += n;
+                }
+            }
+            return eof;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            release();
+        }
+    }
+
+    /** Raw body bytes taken off the connection, including chunk framing. */
+    long consumed() {
+        return consumed;
+    }
+
+    private void readChunkSize() throws IOException {
+        long size = 0;
+        int digits = 0;
+        int c = next();
+        while (true) {
+            int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                break;
+            }
+            if (++digits > 15) {
+                throw new IOException("Chunk size too large");
+            }
+            size = size * 16 + digit;
+            c = next();
+        }
+        if (digits == 0) {
+            throw new IOException("Malformed chunk size");
+        }
+        // Ignore chunk extensions
+        int length = 0;
+        while (c != '\r') {
+            if (++length > MAX_CHUNK_LINE) {
+                throw new IOException("Chunk extension too long");
+            }
+            c = next();
+        }
+        expect('\n');
+
+        if (size == 0) {
+            skipTrailers();
+            eof = true;
+        } else {
+            remaining = size;
+        }
+    }
+
+    private void skipTrailers() throws IOException {
+        while (true) {
+            int length = 0;
+            int c = next();
+            while (c != '\r') {
+                if (++length > MAX_CHUNK_LINE) {
+                    throw new IOException("Trailer too long");
+                }
+                c = next();
+            }
+            expect('\n');
+            if (length == 0) {
+                return;
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (next() != expected) {
+            throw new IOException("Malformed chunked body");
+        }
+    }
+
+    private int next() throws IOException {
+        if (buffered() == 0 && fill() < 0) {
+            throw new EOFException("Request body truncated");
+        }
+        consumed++;
+        return buffer.array()[pos++] & 0xff;
+    }
+
+    private int buffered() {
+        return buffer.size() - pos;
+    }
+
+    private int fill() throws IOException {
+        if (in == null) {
+            return -1;
+        }
+        release();
+        return buffer.readFrom(in);
+    }
+
+    private void release() {
+        if (pos > start) {
+            buffer.discard(start, pos);
+            pos = start;
+        }
+    }
+}
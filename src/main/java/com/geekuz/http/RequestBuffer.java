@@ -0,0 +1,72 @@
+package com.geekuz.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Fixed size receive buffer for one connection. Request heads are parsed in place and removed
+ * with {@link #consume(int)}, which keeps any pipelined bytes that follow.
+ */
+public class RequestBuffer {
+    private final byte[] buf;
+    private final ByteBuffer view;
+    private int size;
+    private int scanned;
+
+    public RequestBuffer(int capacity) {
+        this.buf = new byte[capacity];
+        this.view = ByteBuffer.wrap(buf);
+    }
+
+    public byte[] array() { return buf; }
+
+    public int size() { return size; }
+
+    public boolean isFull() { return size == buf.length; }
+
+    /**
+     * Returns the offset just past the blank line ending the first request head, or -1 if it
+     * has not been fully received yet. Bytes already scanned are not looked at again.
+     */
+    public int findHeadEnd() {
+        for (int i = Math.max(scanned, 3); i < size; i++) {
+            if (buf[i] == '\n' && buf[i - 1] == '\r' && buf[i - 2] == '\n' && buf[i - 3] == '\r') {
+                return i + 1;
+            }
+        }
+        scanned = size;
+        return -1;
+    }
+
+    public void consume(int length) {
+        System.arraycopy(buf, length, buf, 0, size - length);
+        size -= length;
+        scanned = 0;
+    }
+
+    /** Removes the bytes between {@code from} and {@code to}, keeping what precedes and follows them. */
+    public void discard(int from, int to) {
+        System.arraycopy(buf, to, buf, from, size - to);
+        size -= to - from;
+        scanned = Math.min(scanned, from);
+    }
+
+    public int readFrom(InputStream in) throws IOException {
+        int n = in.read(buf, size, buf.length - size);
+        if (n > 0) {
+            size += n;
+        }
+        return n;
+    }
+
+    public int readFrom(ReadableByteChannel channel) throws IOException {
+        view.limit(buf.length).position(size);
+        int n = channel.read(view);
+        if (n > 0) {
+            size += n;
+        }
+        return n;
+    }
+}
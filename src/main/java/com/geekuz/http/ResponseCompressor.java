@@ -0,0 +1,152 @@
+package com.geekuz.http;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses response bodies with gzip or deflate when the client accepts it. Bodies below
+ * {@code minSize}, content types that are already compressed, streamed and file responses are
+ * sent as they are. {@link CachedResponse}s keep their compressed variants, so a cached body
+ * is compressed once rather than per request.
+ */
+public class ResponseCompressor {
+    public static final int DEFAULT_MIN_SIZE = 1024;
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final int minSize;
+    private final DeflaterPool gzipPool;
+    private final DeflaterPool deflatePool;
+
+    public ResponseCompressor() {
+        this(DEFAULT_MIN_SIZE, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public ResponseCompressor(int minSize, int level) {
+        int maxIdle = Runtime.getRuntime().availableProcessors() * 2;
+        this.minSize = minSize;
+        this.gzipPool = new DeflaterPool(level, true, maxIdle);
+        this.deflatePool = new DeflaterPool(level, false, maxIdle);
+    }
+
+    /**
+     * Replaces the response body by its compressed form if the request and response allow it,
+     * and marks compressible responses with {@code Vary: Accept-Encoding}.
+     */
+    public void apply(HttpRequest request, HttpResponse response) {
+        if (response.getFile() != null || response.isStreaming()) {
+            return;
+        }
+        CachedResponse cached = response.getCached();
+        byte[] body = cached != null ? cached.getBody() : response.getBody();
+        if (body.length < minSize || !isCompressible(response.getContentType())
+                || hasHeader(response.getHeaders(), "Content-Encoding")) {
+            return;
+        }
+
+        int encoding = choose(request.acceptEncoding());
+        if (cached != null) {
+            response.send(cached.variant(encoding, this));
+            return;
+        }
+        response.header("Vary", "Accept-Encoding");
+        if (encoding == 0) {
+            return;
+        }
+        byte[] compressed = compress(body, encoding);
+        if (compressed.length < body.length) {
+            response.header("Content-Encoding", name(encoding));
+            response.send(response.getStatus(), response.getContentType(), compressed);
+        }
+    }
+
+    /** Compresses {@code body} for {@link HttpRequest#ENCODING_GZIP} or {@link HttpRequest#ENCODING_DEFLATE}. */
+    public byte[] compress(byte[] body, int encoding) {
+        if (encoding == HttpRequest.ENCODING_GZIP) {
+            return gzip(body);
+        }
+        if (encoding == HttpRequest.ENCODING_DEFLATE) {
+            return deflate(deflatePool, body, 0, 0);
+        }
+        throw new IllegalArgumentException("Unknown encoding " + encoding);
+    }
+
+    /** The encoding to use for an Accept-Encoding bitmask, gzip first, or 0 for none. */
+    public static int choose(int accepted) {
+        if ((accepted & HttpRequest.ENCODING_GZIP) != 0) {
+            return HttpRequest.ENCODING_GZIP;
+        }
+        if ((accepted & HttpRequest.ENCODING_DEFLATE) != 0) {
+            return HttpRequest.ENCODING_DEFLATE;
+        }
+        return 0;
+    }
+
+    public static String name(int encoding) {
+        return encoding == HttpRequest.ENCODING_GZIP ? "gzip" : "deflate";
+    }
+
+    static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        return contentType.startsWith("text/")
+                || contentType.startsWith("application/json")
+                || contentType.startsWith("application/x-ndjson")
+                || contentType.startsWith("application/javascript")
+                || contentType.startsWith("application/xml")
+                || contentType.startsWith("image/svg+xml");
+    }
+
+    private static boolean hasHeader(List<String> headers, String name) {
+        for (int i = 0; i < headers.size(); i += 2) {
+            if (headers.get(i).equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] gzip(byte[] body) {
+        byte[] out = deflate(gzipPool, body, GZIP_HEADER.length, 8);
+        System.arraycopy(GZIP_HEADER, 0, out, 0, GZIP_HEADER.length);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        int trailer = out.length - 8;
+        writeIntLE(out, trailer, (int) crc.getValue());
+        writeIntLE(out, trailer + 4, body.length);
+        return out;
+    }
+
+    /**
+     * Deflates {@code body} into a new array with {@code prefix} free bytes before and
+     * {@code suffix} free bytes after the compressed data.
+     */
+    private static byte[] deflate(DeflaterPool pool, byte[] body, int prefix, int suffix) {
+        Deflater deflater = pool.borrow();
+        try {
+            deflater.setInput(body);
+            deflater.finish();
+            byte[] out = new byte[prefix + body.length / 2 + 64 + suffix];
+            int pos = prefix;
+            while (!deflater.finished()) {
+                if (pos == out.length - suffix) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                pos += deflater.deflate(out, pos, out.length - suffix - pos);
+            }
+            return pos + suffix == out.length ? out : Arrays.copyOf(out, pos + suffix);
+        } finally {
+            pool.release(deflater);
+        }
+    }
+
+    private static void writeIntLE(byte[] out, int pos, int value) {
+        out[pos] = (byte) value;
+        out[pos + 1] = (byte) (value >>> 8);
+        out[pos + 2] = (byte) (value >>> 16);
+        out[pos + 3] = (byte) (value >>> 24);
+    }
+}
@@ -0,0 +1,37 @@
+package com.geekuz.http;
+
+import com.geekuz.metrics.RouteMetrics;
+
+/**
+ * A registered method and path template, e.g. {@code GET /api/users/{id}}.
+ */
+public class Route {
+    private final HttpMethod method;
+    private final String template;
+    private final String[] paramNames;
+    private final Handler handler;
+    private final RouteMetrics metrics;
+
+    Route(HttpMethod method, String template, String[] paramNames, Handler handler, RouteMetrics metrics) {
+        this.method = method;
+        this.template = template;
+        this.paramNames = paramNames;
+        this.handler = handler;
+        this.metrics = metrics;
+    }
+
+    public HttpMethod getMethod() { return method; }
+
+    public String getTemplate() { return template; }
+
+    public Handler getHandler() { return handler; }
+
+    public RouteMetrics getMetrics() { return metrics; }
+
+    String[] paramNames() { return paramNames; }
+
+    @Override
+    public String toString() {
+        return method + " " + template;
+    }
+}
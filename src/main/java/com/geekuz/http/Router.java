@@ -0,0 +1,372 @@
+package com.geekuz.http;
+
+import com.geekuz.logging.AsyncLogger;
+import com.geekuz.metrics.MetricsRegistry;
+import com.geekuz.metrics.RouteMetrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps method and path to a {@link Handler}. Templates are split into segments and stored in a
+ * prefix trie; a segment written as {@code {name}} matches any single segment and is exposed
+ * through {@link HttpRequest#pathParam(String)}. A last segment written as {@code {name*}}
+ * matches the rest of the path, slashes included. Matching walks the request path bytes once, so
+ * its cost depends on the number of segments, not on how many routes are registered.
+ *
+ * Routes are registered before the server starts; matching is then safe from any thread.
+ */
+public class Router {
+    private static final CachedResponse NOT_FOUND = new CachedResponse(404, "text/plain", "Not Found");
+    private static final CachedResponse NOT_IMPLEMENTED = new CachedResponse(501, "text/plain", "Not Implemented");
+    private static final CachedResponse INTERNAL_ERROR = new CachedResponse(500, "text/plain", "Internal Server Error");
+    private static final byte[] METHOD_NOT_ALLOWED = "Method Not Allowed".getBytes(StandardCharsets.UTF_8);
+
+    private final Node root = new Node();
+    private final MetricsRegistry metrics;
+    private final RouteMetrics unmatched;
+    private ResponseCompressor compressor;
+    private AsyncLogger log;
+    private boolean blockingRoutes;
+
+    public Router() {
+        this(new MetricsRegistry());
+    }
+
+    public Router(MetricsRegistry metrics) {
+        this.metrics = metrics;
+        this.unmatched = metrics.route("*", "unmatched");
+    }
+
+    public MetricsRegistry metrics() {
+        return metrics;
+    }
+
+    /** Compresses handler responses with {@code compressor}; null turns compression off. */
+    public Router compression(ResponseCompressor compressor) {
+        this.compressor = compressor;
+        return this;
+    }
+
+    /**
+     * Writes an access log line for every recorded exchange, and handler errors, through
+     * {@code log}; null turns the access log off and prints errors directly.
+     */
+    public Router log(AsyncLogger log) {
+        this.log = log;
+        if (log != null) {
+            metrics.counter("log_events_dropped_total", "Log events dropped because the ring buffer was full.",
+                    log::getDropped);
+        }
+        return this;
+    }
+
+    /** Logs an error from a request thread without waiting for the console. */
+    public void error(String message) {
+        if (log != null) {
+            log.error(message);
+        } else {
+            System.err.println(message);
+        }
+    }
+
+    public Router add(HttpMethod method, String template, Handler handler) {
+        if (!template.startsWith("/")) {
+            throw new IllegalArgumentException("Path template must start with '/': " + template);
+        }
+        Node node = root;
+        List<String> paramNames = new ArrayList<>();
+        String[] segments = template.substring(1).split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.startsWith("{") && segment.endsWith("*}")) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("Wildcard must be the last segment: " + template);
+                }
+                paramNames.add(segment.substring(1, segment.length() - 2));
+                if (node.wildcardChild == null) {
+                    node.wildcardChild = new Node();
+                }
+                node = node.wildcardChild;
+            } else if (segment.startsWith("{") && segment.endsWith("}")) {
+                paramNames.add(segment.substring(1, segment.length() - 1));
+                if (node.paramChild == null) {
+                    node.paramChild = new Node();
+                }
+                node = node.paramChild;
+            } else {
+                node = node.staticChild(segment.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        if (node.routes[method.ordinal()] != null) {
+            throw new IllegalArgumentException("Route already registered: " + method + " " + template);
+        }
+        blockingRoutes |= handler.isBlocking();
+        node.routes[method.ordinal()] = new Route(method, template, paramNames.toArray(new String[0]), handler,
+                metrics.route(method.name(), template));
+        return this;
+    }
+
+    public Router get(String template, Handler handler) {
+        return add(HttpMethod.GET, template, handler);
+    }
+
+    public Router post(String template, Handler handler) {
+        return add(HttpMethod.POST, template, handler);
+    }
+
+    public Router put(String template, Handler handler) {
+        return add(HttpMethod.PUT, template, handler);
+    }
+
+    public Router delete(String template, Handler handler) {
+        return add(HttpMethod.DELETE, template, handler);
+    }
+
+    /** Whether any route has a {@link Handler#isBlocking() blocking} handler. */
+    public boolean hasBlockingRoutes() {
+        return blockingRoutes;
+    }
+
+    /**
+     * Finds the route for the request and records its path parameters in the request.
+     * Returns null if no route matches the path or none is registered for the method.
+     */
+    public Route match(HttpRequest request) {
+        Node node = find(request);
+        Route route = node == null ? null : node.route(request.method());
+        if (route != null) {
+            request.paramNames = route.paramNames();
+        }
+        return route;
+    }
+
+    /**
+     * Routes the request and lets the handler fill in the response. Unknown paths get a 404,
+     * known paths with another method a 405, and handler failures a 500.
+     */
+    public Route dispatch(HttpRequest request, HttpResponse response) {
+        response.reset();
+        if (request.method() == null) {
+            response.send(NOT_IMPLEMENTED);
+            return null;
+        }
+        Node node = find(request);
+        if (node == null) {
+            response.send(NOT_FOUND);
+            return null;
+        }
+        Route route = node.route(request.method());
+        if (route == null) {
+            response.header("Allow", node.allow());
+            response.send(405, "text/plain", METHOD_NOT_ALLOWED);
+            return null;
+        }
+        request.paramNames = route.paramNames();
+        try {
+            route.getHandler().handle(request, response);
+            if (compressor != null) {
+                compressor.apply(request, response);
+            }
+        } catch (Exception e) {
+            error("Error handling " + route + ": " + e);
+            response.reset();
+            response.send(INTERNAL_ERROR);
+        }
+        return route;
+    }
+
+    /**
+     * Records a finished exchange against the route {@link #dispatch} returned, or against the
+     * {@code unmatched} series if it returned null, and hands it to the access log if there is
+     * one. The request must not have been reused yet.
+     */
+    public void record(HttpRequest request, Route route, int status, long bytesIn, long bytesOut, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        RouteMetrics target = route != null ? route.getMetrics() : unmatched;
+        target.record(status, bytesIn, bytesOut, nanos);
+        if (log != null) {
+            HttpMethod method = request.method();
+            log.access(method != null ? method.name() : null, request.buf, request.pathStart, request.pathEnd,
+                    route != null ? route.getTemplate() : null, status, bytesIn, bytesOut, nanos / 1000);
+        }
+    }
+
+    /**
+     * The node with a route for the request's method; failing that, the node matching the path
+     * for any method, so the caller can answer 405 with what it allows.
+     */
+    private Node find(HttpRequest request) {
+        Node node = find(request, request.method());
+        return node != null ? node : find(request, null);
+    }
+
+    private Node find(HttpRequest request, HttpMethod method) {
+        request.paramCount = 0;
+        return match(root, request, request.pathStart + 1, method);
+    }
+
+    /**
+     * Matches the segment starting at {@code from} below {@code node}, to a node with a route for
+     * {@code method}, or with any route if it is null. Static segments win over parameters; if the
+     * static branch dead-ends, or only has routes for other methods, the parameter branch is tried
+     * instead.
+     */
+    private static Node match(Node node, HttpRequest request, int from, HttpMethod method) {
+        byte[] buf = request.buf;
+        int end = request.pathEnd;
+        int to = from;
+        int hash = 0;
+        while (to < end && buf[to] != '/') {
+            hash = 31 * hash + buf[to];
+            to++;
+        }
+        boolean last = to == end;
+
+        Node child = node.findStatic(buf, from, to, hash);
+        if (child != null) {
+            Node found = last ? (child.serves(method) ? child : null) : match(child, request, to + 1, method);
+            if (found != null) {
+                return found;
+            }
+        }
+
+        child = node.paramChild;
+        if (child != null && to > from) {
+            int mark = request.paramCount;
+            request.addParam(from, to);
+            Node found = last ? (child.serves(method) ? child : null) : match(child, request, to + 1, method);
+            if (found != null) {
+                return found;
+            }
+            request.paramCount = mark;
+        }
+
+        // A trailing {name*} takes the rest of the path, slashes included
+        child = node.wildcardChild;
+        if (child != null && child.serves(method)) {
+            request.addParam(from, end);
+            return child;
+        }
+        return null;
+    }
+
+    private static final class Node {
+        private static final HttpMethod[] METHODS = HttpMethod.values();
+
+        final Route[] routes = new Route[METHODS.length];
+        Node paramChild;
+        Node wildcardChild;
+
+        // Open addressing table of static children keyed by segment bytes
+        private byte[][] keys = new byte[4][];
+        private int[] hashes = new int[4];
+        private Node[] children = new Node[4];
+        private int size;
+
+        Route route(HttpMethod method) {
+            Route route = routes[method.ordinal()];
+            if (route == null && method == HttpMethod.HEAD) {
+                route = routes[HttpMethod.GET.ordinal()];
+            }
+            return route;
+        }
+
+        /** Whether there is a route for {@code method}, or for any method if it is null. */
+        boolean serves(HttpMethod method) {
+            if (method != null) {
+                return route(method) != null;
+            }
+            for (Route route : routes) {
+                if (route != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String allow() {
+            StringBuilder allow = new StringBuilder();
+            for (Route route : routes) {
+                if (route != null) {
+                    if (allow.length() > 0) {
+                        allow.append(", ");
+                    }
+                    allow.append(route.getMethod());
+                }
+            }
+            return allow.toString();
+        }
+
+        Node findStatic(byte[] buf, int from, int to, int hash) {
+            int mask = keys.length - 1;
+            for (int i = spread(hash) & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (hashes[i] == hash && equals(keys[i], buf, from, to)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node staticChild(byte[] segment) {
+            int hash = 0;
+            for (byte b : segment) {
+                hash = 31 * hash + b;
+            }
+            Node existing = findStatic(segment, 0, segment.length, hash);
+            if (existing != null) {
+                return existing;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            Node child = new Node();
+            insert(segment, hash, child);
+            return child;
+        }
+
+        private void insert(byte[] key, int hash, Node child) {
+            int mask = keys.length - 1;
+            int i = spread(hash) & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            hashes[i] = hash;
+            children[i] = child;
+            size++;
+        }
+
+        private void resize() {
+            byte[][] oldKeys = keys;
+            int[] oldHashes = hashes;
+            Node[] oldChildren = children;
+            keys = new byte[oldKeys.length * 2][];
+            hashes = new int[oldKeys.length * 2];
+            children = new Node[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insert(oldKeys[i], oldHashes[i], oldChildren[i]);
+                }
+            }
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean equals(byte[] key, byte[] buf, int from, int to) {
+            if (key.length != to - from) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buf[from + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
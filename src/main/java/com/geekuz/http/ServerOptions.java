@@ -0,0 +1,83 @@
+package com.geekuz.http;
+
+/**
+ * Tunables shared by the server implementations.
+ */
+public class ServerOptions {
+    private int idleTimeoutMillis = 5000;
+    private int maxRequestsPerConnection = 100;
+    private ExecutionMode executionMode = ExecutionMode.FIXED;
+    private int workerThreads = 10;
+    private int maxConnections = 10_000;
+    private int queueCapacity = 1000;
+    private QueueDiscipline queueDiscipline = QueueDiscipline.FIFO;
+    private int retryAfterSeconds = 1;
+    private int acceptors = 1;
+    private int backlog = 1024;
+    private boolean tcpNoDelay = true;
+    private int sendBufferSize;
+    private int receiveBufferSize;
+    private int responseChunkSize = 16 * 1024;
+    private HandlerThreads handlerThreads = HandlerThreads.POOL;
+
+    // Getters and setters
+    public int getIdleTimeoutMillis() { return idleTimeoutMillis; }
+    public void setIdleTimeoutMillis(int idleTimeoutMillis) { this.idleTimeoutMillis = idleTimeoutMillis; }
+
+    public int getMaxRequestsPerConnection() { return maxRequestsPerConnection; }
+    public void setMaxRequestsPerConnection(int maxRequestsPerConnection) { this.maxRequestsPerConnection = maxRequestsPerConnection; }
+
+    public ExecutionMode getExecutionMode() { return executionMode; }
+    public void setExecutionMode(ExecutionMode executionMode) { this.executionMode = executionMode; }
+
+    /**
+     * Pool size for {@link ExecutionMode#FIXED} and parallelism for {@link ExecutionMode#WORK_STEALING},
+     * per acceptor. {@code SimpleServer} has a single pool of this size.
+     */
+    public int getWorkerThreads() { return workerThreads; }
+    public void setWorkerThreads(int workerThreads) { this.workerThreads = workerThreads; }
+
+    /** Connections served or queued at the same time; more are answered with 503 right away. */
+    public int getMaxConnections() { return maxConnections; }
+    public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+    /** Connections that may wait for a worker in {@link ExecutionMode#FIXED} mode, per acceptor. */
+    public int getQueueCapacity() { return queueCapacity; }
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+    public QueueDiscipline getQueueDiscipline() { return queueDiscipline; }
+    public void setQueueDiscipline(QueueDiscipline queueDiscipline) { this.queueDiscipline = queueDiscipline; }
+
+    public int getRetryAfterSeconds() { return retryAfterSeconds; }
+    public void setRetryAfterSeconds(int retryAfterSeconds) { this.retryAfterSeconds = retryAfterSeconds; }
+
+    /**
+     * Number of accept loops. With more than one, each gets its own listening socket bound with
+     * SO_REUSEPORT and its own workers, so the kernel spreads new connections across them.
+     */
+    public int getAcceptors() { return acceptors; }
+    public void setAcceptors(int acceptors) { this.acceptors = acceptors; }
+
+    /** Length of the kernel's queue of connections not yet accepted (SO_BACKLOG). */
+    public int getBacklog() { return backlog; }
+    public void setBacklog(int backlog) { this.backlog = backlog; }
+
+    public boolean isTcpNoDelay() { return tcpNoDelay; }
+    public void setTcpNoDelay(boolean tcpNoDelay) { this.tcpNoDelay = tcpNoDelay; }
+
+    /** SO_SNDBUF for accepted sockets, 0 for the OS default. */
+    public int getSendBufferSize() { return sendBufferSize; }
+    public void setSendBufferSize(int sendBufferSize) { this.sendBufferSize = sendBufferSize; }
+
+    /** SO_RCVBUF for accepted sockets, 0 for the OS default. */
+    public int getReceiveBufferSize() { return receiveBufferSize; }
+    public void setReceiveBufferSize(int receiveBufferSize) { this.receiveBufferSize = receiveBufferSize; }
+
+    /** Streamed response bodies are sent in chunks of up to this many bytes, one flush each. */
+    public int getResponseChunkSize() { return responseChunkSize; }
+    public void setResponseChunkSize(int responseChunkSize) { this.responseChunkSize = responseChunkSize; }
+
+    /** Only used by {@code SimpleServer}, the other servers always hand connections to workers. */
+    public HandlerThreads getHandlerThreads() { return handlerThreads; }
+    public void setHandlerThreads(HandlerThreads handlerThreads) { this.handlerThreads = handlerThreads; }
+}
@@ -0,0 +1,57 @@
+package com.geekuz.http;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Applies {@link ServerOptions} to listening and accepted sockets.
+ */
+public final class Sockets {
+
+    private Sockets() {
+    }
+
+    /**
+     * Whether several sockets may listen on the same port, with the kernel spreading incoming
+     * connections across them (Linux 3.9+, BSD).
+     */
+    public static boolean isReusePortSupported() {
+        try (ServerSocketChannel channel = ServerSocketChannel.open()) {
+            return channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static ServerSocketChannel listen(int port, ServerOptions options, boolean reusePort) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            if (reusePort) {
+                channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            // Set before bind so accepted sockets inherit it and the window scale is negotiated
+            if (options.getReceiveBufferSize() > 0) {
+                channel.setOption(StandardSocketOptions.SO_RCVBUF, options.getReceiveBufferSize());
+            }
+            channel.bind(new InetSocketAddress(port), options.getBacklog());
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static void configure(SocketChannel channel, ServerOptions options) throws IOException {
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, options.isTcpNoDelay());
+        if (options.getSendBufferSize() > 0) {
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, options.getSendBufferSize());
+        }
+        if (options.getReceiveBufferSize() > 0) {
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, options.getReceiveBufferSize());
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.geekuz.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Serves files below a root directory for routes like {@code /static/{path*}}. Bodies are sent
+ * with {@code transferTo}, single byte ranges and If-Modified-Since are honoured, and open files
+ * are shared through an {@link OpenFileCache}.
+ */
+public class StaticFileHandler implements Handler {
+    private static final CachedResponse NOT_FOUND = new CachedResponse(404, "text/plain", "Not Found");
+    private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+
+    static {
+        CONTENT_TYPES.put("html", "text/html; charset=utf-8");
+        CONTENT_TYPES.put("css", "text/css; charset=utf-8");
+        CONTENT_TYPES.put("js", "text/javascript; charset=utf-8");
+        CONTENT_TYPES.put("json", "application/json");
+        CONTENT_TYPES.put("txt", "text/plain; charset=utf-8");
+        CONTENT_TYPES.put("csv", "text/csv; charset=utf-8");
+        CONTENT_TYPES.put("ndjson", "application/x-ndjson");
+        CONTENT_TYPES.put("svg", "image/svg+xml");
+        CONTENT_TYPES.put("png", "image/png");
+        CONTENT_TYPES.put("jpg", "image/jpeg");
+        CONTENT_TYPES.put("jpeg", "image/jpeg");
+        CONTENT_TYPES.put("gif", "image/gif");
+        CONTENT_TYPES.put("ico", "image/x-icon");
+        CONTENT_TYPES.put("pdf", "application/pdf");
+        CONTENT_TYPES.put("zip", "application/zip");
+        CONTENT_TYPES.put("gz", "application/gzip");
+    }
+
+    private final Path root;
+    private final String param;
+    private final OpenFileCache cache;
+    // The root with symbolic links resolved, once it exists
+    private volatile Path realRoot;
+
+    public StaticFileHandler(Path root) {
+        this(root, "path", new OpenFileCache(256, 1000));
+    }
+
+    /**
+     * @param param name of the wildcard segment holding the file's path below {@code root}
+     */
+    public StaticFileHandler(Path root, String param, OpenFileCache cache) {
+        this.root = root.toAbsolutePath().normalize();
+        this.param = param;
+        this.cache = cache;
+    }
+
+    @Override
+    public void handle(HttpRequest request, HttpResponse response) throws IOException {
+        Path path = resolve(request.pathParam(param));
+        if (path == null) {
+            response.send(NOT_FOUND);
+            return;
+        }
+        OpenFileCache.OpenFile file;
+        try {
+            file = cache.acquire(path);
+        } catch (NoSuchFileException e) {
+            // Also thrown for directories
+            response.send(NOT_FOUND);
+            return;
+        }
+        // Symbolic links inside the root may point out of it
+        if (!file.realPath().startsWith(realRoot())) {
+            file.release();
+            response.send(NOT_FOUND);
+            return;
+        }
+
+        long size = file.size();
+        // HTTP dates have whole seconds
+        long lastModified = file.lastModified() / 1000 * 1000;
+        response.header("Last-Modified", HttpDate.format(lastModified));
+        response.header("Accept-Ranges", "bytes");
+
+        String ifModifiedSince = request.ifModifiedSince();
+        if (ifModifiedSince != null) {
+            long since = HttpDate.parse(ifModifiedSince);
+            if (since >= 0 && lastModified <= since) {
+                file.release();
+                response.status(304);
+                return;
+            }
+        }
+
+        String contentType = contentType(path);
+        String range = request.range();
+        if (range != null) {
+            long[] bounds = parseRange(range, size);
+            if (bounds == null) {
+                file.release();
+                response.header("Content-Range", "bytes */" + size);
+                response.send(416, "text/plain", "Range Not Satisfiable");
+                return;
+            }
+            if (bounds.length == 2) {
+                response.header("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + size);
+                response.sendFile(206, contentType, file.region(bounds[0], bounds[1] - bounds[0] + 1));
+                return;
+            }
+        }
+        response.sendFile(200, contentType, file.region(0, size));
+    }
+
+    /**
+     * Parses a single {@code bytes=} range into inclusive first and last offsets. Returns an
+     * empty array for ranges that are ignored (other units, several ranges, syntax errors) and
+     * null for a range that cannot be satisfied.
+     */
+    static long[] parseRange(String range, long size) {
+        String value = range.trim();
+        if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = value.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // Suffix range: the last n bytes
+                long n = Long.parseLong(last);
+                if (n <= 0) {
+                    return null;
+                }
+                start = Math.max(0, size - n);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                if (end < start) {
+                    return new long[0];
+                }
+                end = Math.min(end, size - 1);
+            }
+            if (start >= size) {
+                return null;
+            }
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    /** Resolved on first use; the root does not have to exist when the handler is created. */
+    private Path realRoot() throws IOException {
+        Path real = realRoot;
+        if (real == null) {
+            real = root.toRealPath();
+            realRoot = real;
+        }
+        return real;
+    }
+
+    private Path resolve(String relative) {
+        if (relative == null || relative.isEmpty()) {
+            return null;
+        }
+        String decoded = decode(relative);
+        if (decoded == null || decoded.indexOf('\0') >= 0) {
+            return null;
+        }
+        Path path = root.resolve(decoded).normalize();
+        // Keeps ../ tricks inside the root
+        return path.startsWith(root) ? path : null;
+    }
+
+    /** Percent-decodes a path; unlike URLDecoder it leaves '+' alone. */
+    static String decode(String path) {
+        if (path.indexOf('%') < 0) {
+            return path;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= path.length()) {
+                    return null;
+                }
+                int hi = Character.digit(path.charAt(i + 1), 16);
+                int lo = Character.digit(path.charAt(i + 2), 16);
+                if (hi < 0 || lo < 0) {
+                    return null;
+                }
+                bytes.write(hi << 4 | lo);
+                i += 2;
+            } else {
+                // Characters sent as they are, not percent-encoded, still have to become UTF-8
+                int next = path.indexOf('%', i);
+                if (next < 0) {
+                    next = path.length();
+                }
+                bytes.writeBytes(path.substring(i, next).getBytes(StandardCharsets.UTF_8));
+                i = next - 1;
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String contentType(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String type = dot < 0 ? null : CONTENT_TYPES.get(name.substring(dot + 1).toLowerCase());
+        return type != null ? type : "application/octet-stream";
+    }
+}
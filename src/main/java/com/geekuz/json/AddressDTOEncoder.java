@@ -0,0 +1,29 @@
+package com.geekuz.json;
+
+import com.geekuz.dto.AddressDTO;
+
+import java.io.IOException;
+
+/**
+ * {@link AddressDTO} as {@code {"fullAddress":..,"city":..,"zipCode":..}}, leaving out null fields.
+ */
+public class AddressDTOEncoder implements JsonEncoder<AddressDTO> {
+    private static final byte[] FULL_ADDRESS = JsonWriter.name("fullAddress");
+    private static final byte[] CITY = JsonWriter.name("city");
+    private static final byte[] ZIP_CODE = JsonWriter.name("zipCode");
+
+    @Override
+    public void write(JsonWriter out, AddressDTO address) throws IOException {
+        out.beginObject();
+        if (address.getFullAddress() != null) {
+            out.name(FULL_ADDRESS).string(address.getFullAddress());
+        }
+        if (address.getCity() != null) {
+            out.name(CITY).string(address.getCity());
+        }
+        if (address.getZipCode() != null) {
+            out.name(ZIP_CODE).string(address.getZipCode());
+        }
+        out.endObject();
+    }
+}
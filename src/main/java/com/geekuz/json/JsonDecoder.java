@@ -0,0 +1,9 @@
+package com.geekuz.json;
+
+/**
+ * Reads one type from JSON; the counterpart of {@link JsonEncoder}.
+ */
+@FunctionalInterface
+public interface JsonDecoder<T> {
+    T read(JsonReader in);
+}
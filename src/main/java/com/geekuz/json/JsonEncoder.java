@@ -0,0 +1,12 @@
+package com.geekuz.json;
+
+import java.io.IOException;
+
+/**
+ * Writes one type as JSON. Implementations are written per class with their property names
+ * pre-encoded, so encoding a value costs the getter calls and the bytes written, nothing more.
+ */
+@FunctionalInterface
+public interface JsonEncoder<T> {
+    void write(JsonWriter out, T value) throws IOException;
+}
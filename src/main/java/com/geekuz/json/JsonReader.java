@@ -0,0 +1,340 @@
+package com.geekuz.json;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull parser over a UTF-8 JSON document held in a byte array, the reading side of
+ * {@link JsonWriter}. Callers walk the document token by token, which lets decoders fill their
+ * objects directly without building a tree first. Malformed input throws
+ * {@link IllegalArgumentException} with the offset where parsing stopped.
+ *
+ * Not thread-safe.
+ */
+public final class JsonReader {
+    private final byte[] buf;
+    private final int end;
+    private int pos;
+    private boolean needsComma;
+
+    public JsonReader(byte[] buf) {
+        this(buf, 0, buf.length);
+    }
+
+    public JsonReader(byte[] buf, int from, int to) {
+        this.buf = buf;
+        this.pos = from;
+        this.end = to;
+    }
+
+    public void beginObject() {
+        expect('{');
+        needsComma = false;
+    }
+
+    public void endObject() {
+        expect('}');
+        needsComma = true;
+    }
+
+    public void beginArray() {
+        expect('[');
+        needsComma = false;
+    }
+
+    public void endArray() {
+        expect(']');
+        needsComma = true;
+    }
+
+    /**
+     * Whether the current object or array has another member, consuming the comma before it.
+     */
+    public boolean hasNext() {
+        skipWhitespace();
+        if (pos >= end) {
+            throw error("unexpected end of input");
+        }
+        if (buf[pos] == '}' || buf[pos] == ']') {
+            return false;
+        }
+        if (needsComma) {
+            if (buf[pos] != ',') {
+                throw error("expected ','");
+            }
+            pos++;
+            needsComma = false;
+        }
+        return true;
+    }
+
+    /** Reads a member name and the colon after it. */
+    public String nextName() {
+        String name = nextString();
+        expect(':');
+        needsComma = false;
+        return name;
+    }
+
+    /** Whether the next value is {@code null}; if so it is consumed. */
+    public boolean nextNull() {
+        skipWhitespace();
+        if (pos + 4 <= end && buf[pos] == 'n' && buf[pos + 1] == 'u' && buf[pos + 2] == 'l' && buf[pos + 3] == 'l') {
+            pos += 4;
+            needsComma = true;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean nextBoolean() {
+        skipWhitespace();
+        boolean value;
+        if (matches("true")) {
+            pos += 4;
+            value = true;
+        } else if (matches("false")) {
+            pos += 5;
+            value = false;
+        } else {
+            throw error("expected a boolean");
+        }
+        needsComma = true;
+        return value;
+    }
+
+    /** An integer that fits a long; fractions and exponents are rejected. */
+    public long nextLong() {
+        skipWhitespace();
+        int start = pos;
+        boolean negative = pos < end && buf[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (pos < end && buf[pos] >= '0' && buf[pos] <= '9') {
+            int digit = buf[pos++] - '0';
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                pos = start;
+                throw error("integer out of range");
+            }
+            // Accumulated negatively so Long.MIN_VALUE fits
+            value = value * 10 - digit;
+            digits++;
+        }
+        if (digits == 0 || pos < end && (buf[pos] == '.' || buf[pos] == 'e' || buf[pos] == 'E')) {
+            pos = start;
+            throw error("expected an integer");
+        }
+        if (!negative && value == Long.MIN_VALUE) {
+            pos = start;
+            throw error("integer out of range");
+        }
+        needsComma = true;
+        return negative ? value : -value;
+    }
+
+    public String nextString() {
+        skipWhitespace();
+        if (pos >= end || buf[pos] != '"') {
+            throw error("expected a string");
+        }
+        int start = ++pos;
+        while (pos < end && buf[pos] != '"' && buf[pos] != '\\') {
+            if ((buf[pos] & 0xFF) < 0x20) {
+                throw error("control character in string");
+            }
+            pos++;
+        }
+        if (pos >= end) {
+            throw error("unterminated string");
+        }
+        String value;
+        if (buf[pos] == '"') {
+            // No escapes: decode straight from the input
+            value = new String(buf, start, pos - start, StandardCharsets.UTF_8);
+        } else {
+            value = unescape(start);
+        }
+        pos++;
+        needsComma = true;
+        return value;
+    }
+
+    /** Skips the next value, including everything nested in it. */
+    public void skipValue() {
+        skipWhitespace();
+        if (pos >= end) {
+            throw error("unexpected end of input");
+        }
+        switch (buf[pos]) {
+            case '{':
+                beginObject();
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+                break;
+            case '[':
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                break;
+            case '"':
+                nextString();
+                break;
+            case 't':
+            case 'f':
+                nextBoolean();
+                break;
+            case 'n':
+                if (!nextNull()) {
+                    throw error("unexpected token");
+                }
+                break;
+            default:
+                skipNumber();
+        }
+    }
+
+    /** Fails unless only whitespace is left. */
+    public void endDocument() {
+        skipWhitespace();
+        if (pos != end) {
+            throw error("trailing data");
+        }
+    }
+
+    private String unescape(int start) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(pos - start + 16);
+        out.write(buf, start, pos - start);
+        while (true) {
+            if (pos >= end) {
+                throw error("unterminated string");
+            }
+            byte b = buf[pos];
+            if (b == '"') {
+                return out.toString(StandardCharsets.UTF_8);
+            }
+            if ((b & 0xFF) < 0x20) {
+                throw error("control character in string");
+            }
+            if (b != '\\') {
+                out.write(b);
+                pos++;
+                continue;
+            }
+            if (pos + 1 >= end) {
+                throw error("unterminated escape");
+            }
+            byte escaped = buf[pos + 1];
+            pos += 2;
+            switch (escaped) {
+                case '"': out.write('"'); break;
+                case '\\': out.write('\\'); break;
+                case '/': out.write('/'); break;
+                case 'b': out.write('\b'); break;
+                case 'f': out.write('\f'); break;
+                case 'n': out.write('\n'); break;
+                case 'r': out.write('\r'); break;
+                case 't': out.write('\t'); break;
+                case 'u':
+                    int c = hex4();
+                    if (Character.isHighSurrogate((char) c) && pos + 1 < end && buf[pos] == '\\' && buf[pos + 1] == 'u') {
+                        pos += 2;
+                        int low = hex4();
+                        if (Character.isLowSurrogate((char) low)) {
+                            writeUtf8(out, Character.toCodePoint((char) c, (char) low));
+                            break;
+                        }
+                        writeUtf8(out, '?');
+                        c = low;
+                    }
+                    writeUtf8(out, Character.isSurrogate((char) c) ? '?' : c);
+                    break;
+                default:
+                    pos -= 2;
+                    throw error("invalid escape");
+            }
+        }
+    }
+
+    private int hex4() {
+        if (pos + 4 > end) {
+            throw error("truncated unicode escape");
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(buf[pos++], 16);
+            if (digit < 0) {
+                throw error("invalid unicode escape");
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    private static void writeUtf8(ByteArrayOutputStream out, int codePoint) {
+        if (codePoint < 0x80) {
+            out.write(codePoint);
+        } else if (codePoint < 0x800) {
+            out.write(0xC0 | codePoint >> 6);
+            out.write(0x80 | codePoint & 0x3F);
+        } else if (codePoint < 0x10000) {
+            out.write(0xE0 | codePoint >> 12);
+            out.write(0x80 | codePoint >> 6 & 0x3F);
+            out.write(0x80 | codePoint & 0x3F);
+        } else {
+            out.write(0xF0 | codePoint >> 18);
+            out.write(0x80 | codePoint >> 12 & 0x3F);
+            out.write(0x80 | codePoint >> 6 & 0x3F);
+            out.write(0x80 | codePoint & 0x3F);
+        }
+    }
+
+    private void skipNumber() {
+        int start = pos;
+        while (pos < end && (buf[pos] >= '0' && buf[pos] <= '9' || buf[pos] == '-' || buf[pos] == '+'
+                || buf[pos] == '.' || buf[pos] == 'e' || buf[pos] == 'E')) {
+            pos++;
+        }
+        if (pos == start) {
+            throw error("unexpected token");
+        }
+        needsComma = true;
+    }
+
+    private boolean matches(String literal) {
+        if (pos + literal.length() > end) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (buf[pos + i] != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void expect(char c) {
+        skipWhitespace();
+        if (pos >= end || buf[pos] != c) {
+            throw error("expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && (buf[pos] == ' ' || buf[pos] == '\n' || buf[pos] == '\r' || buf[pos] == '\t')) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Malformed JSON at offset " + pos + ": " + message);
+    }
+}
@@ -0,0 +1,326 @@
+package com.geekuz.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Appends JSON tokens straight into a byte array. Strings are escaped and UTF-8 encoded while
+ * they are copied, numbers and dates are written digit by digit, so nothing is turned into an
+ * intermediate String. Commas are inserted automatically between members and array elements.
+ *
+ * Without a sink the array grows to hold the whole document and can be reused after
+ * {@link #reset()}. With a sink the array is written to it whenever it fills up, so documents of
+ * any size stream through a fixed buffer; call {@link #flush()} at the end.
+ *
+ * Not thread-safe.
+ */
+public final class JsonWriter {
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MIN_LONG = String.valueOf(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+    // Widest single character: an escaped control character, backslash, u and four hex digits
+    private static final int MAX_CHAR_BYTES = 6;
+
+    private final OutputStream sink;
+    private byte[] buf;
+    private int pos;
+    private long flushed;
+    private boolean needsComma;
+
+    public JsonWriter() {
+        this(1024);
+    }
+
+    public JsonWriter(int capacity) {
+        this(null, capacity);
+    }
+
+    public JsonWriter(OutputStream sink, int bufferSize) {
+        this.sink = sink;
+        this.buf = new byte[Math.max(bufferSize, 64)];
+    }
+
+    /** Pre-encodes a property name with its quotes and colon, for use with {@link #name(byte[])}. */
+    public static byte[] name(String name) {
+        JsonWriter writer = new JsonWriter(name.length() + 8);
+        try {
+            writer.string(name);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] encoded = Arrays.copyOf(writer.buf, writer.pos + 1);
+        encoded[writer.pos] = ':';
+        return encoded;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        separate();
+        put((byte) '{');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        put((byte) '}');
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        separate();
+        put((byte) '[');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        put((byte) ']');
+        needsComma = true;
+        return this;
+    }
+
+    /** Writes a name encoded by {@link #name(String)}; the value has to follow. */
+    public JsonWriter name(byte[] encodedName) throws IOException {
+        separate();
+        put(encodedName, 0, encodedName.length);
+        needsComma = false;
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        separate();
+        put(NULL, 0, NULL.length);
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter bool(boolean value) throws IOException {
+        separate();
+        byte[] literal = value ? TRUE : FALSE;
+        put(literal, 0, literal.length);
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter number(long value) throws IOException {
+        separate();
+        if (value == Long.MIN_VALUE) {
+            put(MIN_LONG, 0, MIN_LONG.length);
+        } else {
+            ensure(20);
+            if (value < 0) {
+                buf[pos++] = '-';
+                value = -value;
+            }
+            putDigits(value, digits(value));
+        }
+        needsComma = true;
+        return this;
+    }
+
+    /** An ISO-8601 date such as {@code "1990-05-15"}. */
+    public JsonWriter date(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            // Needs a sign and more digits, rare enough to take the slow path
+            return string(date.toString());
+        }
+        separate();
+        ensure(12);
+        buf[pos++] = '"';
+        putDigits(year, 4);
+        buf[pos++] = '-';
+        putDigits(date.getMonthValue(), 2);
+        buf[pos++] = '-';
+        putDigits(date.getDayOfMonth(), 2);
+        buf[pos++] = '"';
+        needsComma = true;
+        return this;
+    }
+
+    /** A string, escaped and encoded as UTF-8 while it is copied; null writes {@code null}. */
+    public JsonWriter string(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separate();
+        put((byte) '"');
+        for (int i = 0; i < value.length(); i++) {
+            if (buf.length - pos < MAX_CHAR_BYTES) {
+                ensure(MAX_CHAR_BYTES);
+            }
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x80) {
+                escape(c);
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | c >> 6);
+                buf[pos++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | codePoint >> 18);
+                buf[pos++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buf[pos++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buf[pos++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, not encodable
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xE0 | c >> 12);
+                buf[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buf[pos++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        put((byte) '"');
+        needsComma = true;
+        return this;
+    }
+
+    /** An array of strings; null elements are written as {@code null}. */
+    public JsonWriter strings(List<String> values) throws IOException {
+        beginArray();
+        for (int i = 0; i < values.size(); i++) {
+            string(values.get(i));
+        }
+        return endArray();
+    }
+
+    /** An array with every element written by {@code encoder}. */
+    public <T> JsonWriter array(List<T> values, JsonEncoder<? super T> encoder) throws IOException {
+        beginArray();
+        for (int i = 0; i < values.size(); i++) {
+            T value = values.get(i);
+            if (value == null) {
+                nullValue();
+            } else {
+                encoder.write(this, value);
+            }
+        }
+        return endArray();
+    }
+
+    /** Ends a top-level value with a newline, as in newline-delimited JSON. */
+    public JsonWriter newline() throws IOException {
+        put((byte) '\n');
+        needsComma = false;
+        return this;
+    }
+
+    /** Writes whatever is buffered to the sink; a no-op without one. */
+    public void flush() throws IOException {
+        if (sink != null && pos > 0) {
+            sink.write(buf, 0, pos);
+            flushed += pos;
+            pos = 0;
+        }
+    }
+
+    /** Bytes written so far, including those already flushed to the sink. */
+    public long written() {
+        return flushed + pos;
+    }
+
+    /** Discards the buffered bytes so the buffer can be used for the next document. */
+    public void reset() {
+        pos = 0;
+        flushed = 0;
+        needsComma = false;
+    }
+
+    /** The buffer; valid from 0 to {@link #size()} until the next write. */
+    public byte[] buffer() {
+        return buf;
+    }
+
+    /** Bytes currently buffered. */
+    public int size() {
+        return pos;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+
+    /** The buffered bytes, without copying. */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buf, 0, pos);
+    }
+
+    private void separate() throws IOException {
+        if (needsComma) {
+            put((byte) ',');
+        }
+    }
+
+    private void escape(char c) {
+        buf[pos++] = '\\';
+        switch (c) {
+            case '"': buf[pos++] = '"'; break;
+            case '\\': buf[pos++] = '\\'; break;
+            case '\n': buf[pos++] = 'n'; break;
+            case '\r': buf[pos++] = 'r'; break;
+            case '\t': buf[pos++] = 't'; break;
+            case '\b': buf[pos++] = 'b'; break;
+            case '\f': buf[pos++] = 'f'; break;
+            default:
+                buf[pos++] = 'u';
+                buf[pos++] = '0';
+                buf[pos++] = '0';
+                buf[pos++] = HEX[c >> 4];
+                buf[pos++] = HEX[c & 0xF];
+        }
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        for (long limit = 10; digits < 19 && value >= limit; limit *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    /** Writes {@code value} as exactly {@code count} digits, zero padded; the room must be ensured. */
+    private void putDigits(long value, int count) {
+        for (int i = pos + count - 1; i >= pos; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        pos += count;
+    }
+
+    private void put(byte b) throws IOException {
+        if (pos == buf.length) {
+            ensure(1);
+        }
+        buf[pos++] = b;
+    }
+
+    private void put(byte[] bytes, int offset, int length) throws IOException {
+        ensure(length);
+        System.arraycopy(bytes, offset, buf, pos, length);
+        pos += length;
+    }
+
+    /**
+     * Makes room for {@code bytes} more bytes, flushing to the sink first if there is one and
+     * growing the buffer only if that is not enough.
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buf.length - pos >= bytes) {
+            return;
+        }
+        flush();
+        if (buf.length - pos < bytes) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + bytes));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.geekuz.json;
+
+import com.geekuz.dto.AddressDTO;
+import com.geekuz.dto.UserDTO;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the documents {@link UserDTOEncoder} writes. Absent and {@code null} members stay null,
+ * unknown members are skipped and {@code age} is ignored, since it is derived from the birth date.
+ */
+public class UserDTODecoder implements JsonDecoder<UserDTO> {
+
+    @Override
+    public UserDTO read(JsonReader in) {
+        UserDTO user = new UserDTO();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.nextNull()) {
+                continue;
+            }
+            switch (name) {
+                case "id": user.setId(in.nextLong()); break;
+                case "username": user.setUsername(in.nextString()); break;
+                case "email": user.setEmail(in.nextString()); break;
+                case "birthDate": user.setBirthDate(date(in.nextString())); break;
+                case "address": user.setAddress(address(in)); break;
+                case "roleNames": user.setRoleNames(strings(in)); break;
+                default: in.skipValue();
+            }
+        }
+        in.endObject();
+        return user;
+    }
+
+    private static AddressDTO address(JsonReader in) {
+        AddressDTO address = new AddressDTO();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.nextNull()) {
+                continue;
+            }
+            switch (name) {
+                case "fullAddress": address.setFullAddress(in.nextString()); break;
+                case "city": address.setCity(in.nextString()); break;
+                case "zipCode": address.setZipCode(in.nextString()); break;
+                default: in.skipValue();
+            }
+        }
+        in.endObject();
+        return address;
+    }
+
+    private static List<String> strings(JsonReader in) {
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(in.nextNull() ? null : in.nextString());
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static LocalDate date(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.geekuz.json;
+
+import com.geekuz.dto.UserDTO;
+
+import java.io.IOException;
+
+/**
+ * {@link UserDTO} with its address nested and the role names as an array, leaving out null
+ * fields. {@code age} is a primitive and always written.
+ */
+public class UserDTOEncoder implements JsonEncoder<UserDTO> {
+    private static final byte[] ID = JsonWriter.name("id");
+    private static final byte[] USERNAME = JsonWriter.name("username");
+    private static final byte[] EMAIL = JsonWriter.name("email");
+    private static final byte[] BIRTH_DATE = JsonWriter.name("birthDate");
+    private static final byte[] ADDRESS = JsonWriter.name("address");
+    private static final byte[] ROLE_NAMES = JsonWriter.name("roleNames");
+    private static final byte[] AGE = JsonWriter.name("age");
+
+    private final AddressDTOEncoder addressEncoder = new AddressDTOEncoder();
+
+    @Override
+    public void write(JsonWriter out, UserDTO user) throws IOException {
+        out.beginObject();
+        if (user.getId() != null) {
+            out.name(ID).number(user.getId());
+        }
+        if (user.getUsername() != null) {
+            out.name(USERNAME).string(user.getUsername());
+        }
+        if (user.getEmail() != null) {
+            out.name(EMAIL).string(user.getEmail());
+        }
+        if (user.getBirthDate() != null) {
+            out.name(BIRTH_DATE).date(user.getBirthDate());
+        }
+        if (user.getAddress() != null) {
+            out.name(ADDRESS);
+            addressEncoder.write(out, user.getAddress());
+        }
+        if (user.getRoleNames() != null) {
+            out.name(ROLE_NAMES).strings(user.getRoleNames());
+        }
+        out.name(AGE).number(user.getAge());
+        out.endObject();
+    }
+}
@@ -0,0 +1,216 @@
+package com.geekuz.loadgen;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * One client socket that sends a pre-encoded request and reads the response off a reused
+ * buffer. Bodies framed by Content-Length, chunked encoding or connection close are skipped
+ * without being kept.
+ */
+class ClientConnection implements AutoCloseable {
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final byte[] buf = new byte[16 * 1024];
+    private int pos;
+    private int limit;
+
+    // Result of the last response
+    private int status;
+    private boolean keepAlive;
+
+    ClientConnection(String host, int port, int timeoutMillis) throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+        socket.setSoTimeout(timeoutMillis);
+        in = socket.getInputStream();
+        out = socket.getOutputStream();
+    }
+
+    void send(byte[] request) throws IOException {
+        out.write(request);
+        out.flush();
+    }
+
+    /** Reads one complete response; afterwards {@link #status()} and {@link #isKeepAlive()} describe it. */
+    void readResponse() throws IOException {
+        // Status line: HTTP/1.x NNN ...
+        int lineEnd = readLine();
+        if (lineEnd - pos < 12 || buf[pos] != 'H') {
+            throw new IOException("Malformed status line");
+        }
+        boolean http11 = buf[pos + 7] == '1';
+        status = (buf[pos + 9] - '0') * 100 + (buf[pos + 10] - '0') * 10 + (buf[pos + 11] - '0');
+        pos = lineEnd + 2;
+
+        long contentLength = -1;
+        boolean chunked = false;
+        int connection = 0;
+        while (true) {
+            lineEnd = readLine();
+            if (lineEnd == pos) {
+                pos += 2;
+                break;
+            }
+            int colon = pos;
+            while (colon < lineEnd && buf[colon] != ':') {
+                colon++;
+            }
+            int value = colon + 1;
+            while (value < lineEnd && buf[value] == ' ') {
+                value++;
+            }
+            if (nameIs("content-length", colon)) {
+                contentLength = parseLong(value, lineEnd, 10);
+            } else if (nameIs("transfer-encoding", colon)) {
+                chunked = containsIgnoreCase(value, lineEnd, "chunked");
+            } else if (nameIs("connection", colon)) {
+                connection = containsIgnoreCase(value, lineEnd, "close") ? 1 : 2;
+            }
+            pos = lineEnd + 2;
+        }
+        keepAlive = connection == 0 ? http11 : connection == 2;
+
+        boolean noBody = status == 204 || status == 304 || status / 100 == 1;
+        if (noBody) {
+            return;
+        }
+        if (chunked) {
+            skipChunked();
+        } else if (contentLength >= 0) {
+            skip(contentLength);
+        } else {
+            // Body ends with the connection
+            keepAlive = false;
+            while (fill() > 0) {
+                pos = limit;
+            }
+        }
+    }
+
+    int status() { return status; }
+
+    boolean isKeepAlive() { return keepAlive; }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private void skipChunked() throws IOException {
+        while (true) {
+            int lineEnd = readLine();
+            int end = pos;
+            while (end < lineEnd && buf[end] != ';') {
+                end++;
+            }
+            long size = parseLong(pos, end, 16);
+            pos = lineEnd + 2;
+            if (size == 0) {
+                // Trailers up to the blank line
+                while ((lineEnd = readLine()) != pos) {
+                    pos = lineEnd + 2;
+                }
+                pos += 2;
+                return;
+            }
+            skip(size + 2);
+        }
+    }
+
+    private void skip(long count) throws IOException {
+        while (count > 0) {
+            if (pos == limit && fill() < 0) {
+                throw new IOException("Connection closed in response body");
+            }
+            int n = (int) Math.min(count, limit - pos);
+            pos += n;
+            count -= n;
+        }
+    }
+
+    /** Makes sure a complete line starting at {@code pos} is buffered and returns the offset of its CR. */
+    private int readLine() throws IOException {
+        int scan = pos;
+        while (true) {
+            for (; scan + 1 < limit; scan++) {
+                if (buf[scan] == '\r' && buf[scan + 1] == '\n') {
+                    return scan;
+                }
+            }
+            int shift = pos;
+            if (fill() < 0) {
+                throw new IOException("Connection closed in response head");
+            }
+            scan -= shift - pos;
+        }
+    }
+
+    /** Compacts the buffer and reads more; returns -1 at end of stream. */
+    private int fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buf.length) {
+            throw new IOException("Response line too long");
+        }
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n > 0) {
+            limit += n;
+        }
+        return n;
+    }
+
+    private boolean nameIs(String lower, int nameEnd) {
+        if (nameEnd - pos != lower.length()) {
+            return false;
+        }
+        for (int i = 0; i < lower.length(); i++) {
+            if ((buf[pos + i] | 0x20) != lower.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean containsIgnoreCase(int from, int to, String lower) {
+        outer:
+        for (int i = from; i + lower.length() <= to; i++) {
+            for (int j = 0; j < lower.length(); j++) {
+                if ((buf[i + j] | 0x20) != lower.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private long parseLong(int from, int to, int radix) throws IOException {
+        long value = 0;
+        int digits = 0;
+        for (int i = from; i < to && buf[i] != ' '; i++) {
+            int digit = Character.digit(buf[i], radix);
+            if (digit < 0) {
+                throw new IOException("Malformed number in response");
+            }
+            value = value * radix + digit;
+            digits++;
+        }
+        if (digits == 0) {
+            throw new IOException("Malformed number in response");
+        }
+        return value;
+    }
+}
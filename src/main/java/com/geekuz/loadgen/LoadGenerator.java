@@ -0,0 +1,227 @@
+package com.geekuz.loadgen;
+
+import com.geekuz.PureServer;
+import com.geekuz.SimpleServer;
+import com.geekuz.http.ExecutionMode;
+import com.geekuz.http.ServerOptions;
+import com.geekuz.metrics.LatencyHistogram;
+import com.geekuz.nio.NioServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HTTP/1.1 load generator for the servers in this repository. One thread per connection
+ * either sends back to back (closed loop) or follows a fixed schedule (open loop). In open
+ * loop mode latency counts from the scheduled send time, so a stalled server shows up as
+ * queueing delay instead of silently lowering the request rate; in closed loop mode the same
+ * coordinated omission is corrected by back-filling the samples that would have been taken at
+ * the expected interval.
+ *
+ * Usage: LoadGenerator [key=value ...]
+ *   host, port, path, mode=closed|open, connections, rate, keepalive=true|false,
+ *   warmup, seconds, timeout (ms), interval (us), header="Name: value",
+ *   server=blocking|nio|simple to start that server in-process on the port first,
+ *   execution=fixed|work-stealing|virtual for that server
+ */
+public class LoadGenerator {
+    private final LoadOptions options;
+    private final byte[] request;
+
+    public LoadGenerator(LoadOptions options) {
+        this.options = options;
+        StringBuilder head = new StringBuilder(128);
+        head.append("GET ").append(options.getPath()).append(" HTTP/1.1\r\n")
+            .append("Host: ").append(options.getHost()).append(':').append(options.getPort()).append("\r\n");
+        if (!options.isKeepAlive()) {
+            head.append("Connection: close\r\n");
+        }
+        for (String header : options.getHeaders()) {
+            head.append(header).append("\r\n");
+        }
+        this.request = head.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Runs the warmup, then the measured phase, and returns the measured results.
+     */
+    public LoadResult run() throws InterruptedException {
+        long expectedInterval = options.getExpectedIntervalMicros();
+        if (options.getWarmupSeconds() > 0) {
+            Phase warmup = new Phase(0);
+            warmup.run(options.getWarmupSeconds());
+            if (expectedInterval == 0 && options.getMode() == LoadMode.CLOSED) {
+                expectedInterval = warmup.serviceTime.snapshot().percentile(50);
+            }
+        }
+        Phase measured = new Phase(options.getMode() == LoadMode.CLOSED ? expectedInterval : 0);
+        long elapsed = measured.run(options.getDurationSeconds());
+        return new LoadResult(options, measured.requests.sum(), measured.errors.sum(), measured.non2xx.sum(),
+                elapsed, measured.responseTime.snapshot(), measured.serviceTime.snapshot(), expectedInterval);
+    }
+
+    /**
+     * One timed stretch of load with its own counters.
+     */
+    private class Phase {
+        final LatencyHistogram responseTime = new LatencyHistogram();
+        final LatencyHistogram serviceTime = new LatencyHistogram();
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder non2xx = new LongAdder();
+        final long expectedIntervalMicros;
+
+        Phase(long expectedIntervalMicros) {
+            this.expectedIntervalMicros = expectedIntervalMicros;
+        }
+
+        long run(int seconds) throws InterruptedException {
+            int connections = Math.max(1, options.getConnections());
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+            // Each connection gets an equal share of the rate, staggered so sends do not bunch up
+            long intervalNanos = options.getMode() == LoadMode.OPEN
+                    ? Math.max(1, (long) (1e9 * connections / Math.max(1, options.getRate())))
+                    : 0;
+
+            Thread[] clients = new Thread[connections];
+            for (int i = 0; i < connections; i++) {
+                long firstSend = start + intervalNanos * i / connections;
+                clients[i] = new Thread(() -> client(firstSend, intervalNanos, deadline), "loadgen-" + i);
+                clients[i].start();
+            }
+            for (Thread client : clients) {
+                client.join();
+            }
+            return System.nanoTime() - start;
+        }
+
+        private void client(long firstSend, long intervalNanos, long deadline) {
+            ClientConnection connection = null;
+            long intended = firstSend;
+            while (true) {
+                long now = System.nanoTime();
+                if (intervalNanos > 0) {
+                    if (intended >= deadline) {
+                        break;
+                    }
+                    if (intended > now) {
+                        LockSupport.parkNanos(intended - now);
+                        now = System.nanoTime();
+                    }
+                } else {
+                    if (now >= deadline) {
+                        break;
+                    }
+                    intended = now;
+                }
+
+                try {
+                    if (connection == null) {
+                        connection = new ClientConnection(options.getHost(), options.getPort(), options.getTimeoutMillis());
+                    }
+                    connection.send(request);
+                    connection.readResponse();
+                    long done = System.nanoTime();
+                    requests.increment();
+                    if (connection.status() < 200 || connection.status() >= 400) {
+                        non2xx.increment();
+                    }
+                    responseTime.recordMicros((done - intended) / 1000, expectedIntervalMicros);
+                    serviceTime.recordMicros((done - now) / 1000);
+                    if (!options.isKeepAlive() || !connection.isKeepAlive()) {
+                        connection.close();
+                        connection = null;
+                    }
+                } catch (IOException e) {
+                    errors.increment();
+                    if (connection != null) {
+                        connection.close();
+                        connection = null;
+                    }
+                }
+                intended += intervalNanos;
+            }
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = new LoadOptions();
+        String server = null;
+        ExecutionMode execution = ExecutionMode.FIXED;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "host": options.setHost(value); break;
+                case "port": options.setPort(Integer.parseInt(value)); break;
+                case "path": options.setPath(value); break;
+                case "mode": options.setMode(LoadMode.parse(value)); break;
+                case "connections": options.setConnections(Integer.parseInt(value)); break;
+                case "rate": options.setRate(Integer.parseInt(value)); break;
+                case "keepalive": options.setKeepAlive(Boolean.parseBoolean(value)); break;
+                case "warmup": options.setWarmupSeconds(Integer.parseInt(value)); break;
+                case "seconds": options.setDurationSeconds(Integer.parseInt(value)); break;
+                case "timeout": options.setTimeoutMillis(Integer.parseInt(value)); break;
+                case "interval": options.setExpectedIntervalMicros(Long.parseLong(value)); break;
+                case "header": options.getHeaders().add(value); break;
+                case "server": server = value; break;
+                case "execution": execution = ExecutionMode.parse(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+
+        if (server != null) {
+            ServerOptions serverOptions = new ServerOptions();
+            serverOptions.setExecutionMode(execution);
+            startInProcess(server, options.getPort(), serverOptions);
+            awaitListening(options.getHost(), options.getPort());
+        }
+        new LoadGenerator(options).run().print(System.out);
+        System.exit(0);
+    }
+
+    /**
+     * Starts one of the servers on a daemon thread, for runs that need no separate process.
+     */
+    public static void startInProcess(String kind, int port, ServerOptions options) {
+        Thread thread = new Thread(() -> {
+            try {
+                switch (kind) {
+                    case "blocking": new PureServer(port, options).start(); break;
+                    case "nio": new NioServer(port, Runtime.getRuntime().availableProcessors(), options).start(); break;
+                    case "simple": new SimpleServer(port, options).start(); break;
+                    default: throw new IllegalArgumentException("Unknown server: " + kind);
+                }
+            } catch (IOException e) {
+                System.err.println("Server error: " + e.getMessage());
+            }
+        }, "server-" + kind);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static void awaitListening(String host, int port) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(host, port), 100);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        throw new IllegalStateException("Nothing listening on " + host + ":" + port);
+    }
+}
@@ -0,0 +1,18 @@
+package com.geekuz.loadgen;
+
+/**
+ * How the load generator paces requests.
+ */
+public enum LoadMode {
+    /** Every connection sends its next request as soon as the previous response arrived. */
+    CLOSED,
+    /**
+     * Requests are sent on a fixed schedule regardless of how fast responses come back, and
+     * latency is measured from the scheduled send time.
+     */
+    OPEN;
+
+    public static LoadMode parse(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+}
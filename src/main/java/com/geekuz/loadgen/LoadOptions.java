@@ -0,0 +1,66 @@
+package com.geekuz.loadgen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for one {@link LoadGenerator} run.
+ */
+public class LoadOptions {
+    private String host = "localhost";
+    private int port = 8080;
+    private String path = "/api/hello";
+    private List<String> headers = new ArrayList<>();
+    private LoadMode mode = LoadMode.CLOSED;
+    private int connections = 50;
+    private int rate = 10_000;
+    private boolean keepAlive = true;
+    private int warmupSeconds = 2;
+    private int durationSeconds = 10;
+    private int timeoutMillis = 5000;
+    private long expectedIntervalMicros;
+
+    // Getters and setters
+    public String getHost() { return host; }
+    public void setHost(String host) { this.host = host; }
+
+    public int getPort() { return port; }
+    public void setPort(int port) { this.port = port; }
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    /** Extra request headers, each as a complete {@code Name: value} line without CRLF. */
+    public List<String> getHeaders() { return headers; }
+    public void setHeaders(List<String> headers) { this.headers = headers; }
+
+    public LoadMode getMode() { return mode; }
+    public void setMode(LoadMode mode) { this.mode = mode; }
+
+    public int getConnections() { return connections; }
+    public void setConnections(int connections) { this.connections = connections; }
+
+    /** Requests per second over all connections in {@link LoadMode#OPEN} mode. */
+    public int getRate() { return rate; }
+    public void setRate(int rate) { this.rate = rate; }
+
+    /** False opens a new connection for every request. */
+    public boolean isKeepAlive() { return keepAlive; }
+    public void setKeepAlive(boolean keepAlive) { this.keepAlive = keepAlive; }
+
+    public int getWarmupSeconds() { return warmupSeconds; }
+    public void setWarmupSeconds(int warmupSeconds) { this.warmupSeconds = warmupSeconds; }
+
+    public int getDurationSeconds() { return durationSeconds; }
+    public void setDurationSeconds(int durationSeconds) { this.durationSeconds = durationSeconds; }
+
+    public int getTimeoutMillis() { return timeoutMillis; }
+    public void setTimeoutMillis(int timeoutMillis) { this.timeoutMillis = timeoutMillis; }
+
+    /**
+     * Send interval a closed-loop client is assumed to aim for when correcting for coordinated
+     * omission. 0 takes the median latency of the warmup.
+     */
+    public long getExpectedIntervalMicros() { return expectedIntervalMicros; }
+    public void setExpectedIntervalMicros(long expectedIntervalMicros) { this.expectedIntervalMicros = expectedIntervalMicros; }
+}
@@ -0,0 +1,73 @@
+package com.geekuz.loadgen;
+
+import com.geekuz.metrics.LatencyHistogram;
+
+import java.io.PrintStream;
+
+/**
+ * Outcome of a {@link LoadGenerator} run. Response time is measured from when a request was
+ * meant to be sent and includes the coordinated omission correction; service time is measured
+ * from when it actually was sent.
+ */
+public class LoadResult {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final LoadOptions options;
+    private final long requests;
+    private final long errors;
+    private final long non2xx;
+    private final long elapsedNanos;
+    private final LatencyHistogram.Snapshot responseTime;
+    private final LatencyHistogram.Snapshot serviceTime;
+    private final long expectedIntervalMicros;
+
+    LoadResult(LoadOptions options, long requests, long errors, long non2xx, long elapsedNanos,
+               LatencyHistogram.Snapshot responseTime, LatencyHistogram.Snapshot serviceTime,
+               long expectedIntervalMicros) {
+        this.options = options;
+        this.requests = requests;
+        this.errors = errors;
+        this.non2xx = non2xx;
+        this.elapsedNanos = elapsedNanos;
+        this.responseTime = responseTime;
+        this.serviceTime = serviceTime;
+        this.expectedIntervalMicros = expectedIntervalMicros;
+    }
+
+    public long getRequests() { return requests; }
+
+    /** Requests that failed with an I/O error or timeout. */
+    public long getErrors() { return errors; }
+
+    /** Responses with a status outside 200-399. */
+    public long getNon2xx() { return non2xx; }
+
+    public double getThroughput() { return requests / (elapsedNanos / 1e9); }
+
+    public LatencyHistogram.Snapshot getResponseTime() { return responseTime; }
+
+    public LatencyHistogram.Snapshot getServiceTime() { return serviceTime; }
+
+    public void print(PrintStream out) {
+        out.printf("%s loop, %d %s connections, %s, %.1f s%n",
+                options.getMode().name().toLowerCase(), options.getConnections(),
+                options.isKeepAlive() ? "keep-alive" : "per-request",
+                options.getMode() == LoadMode.OPEN
+                        ? "target " + options.getRate() + " req/s"
+                        : "expected interval " + expectedIntervalMicros + " us",
+                elapsedNanos / 1e9);
+        out.printf("requests %d, errors %d, non-2xx %d, throughput %.1f req/s%n",
+                requests, errors, non2xx, getThroughput());
+        out.printf("%-14s %10s %10s %10s %10s %10s%n", "latency ms", "p50", "p90", "p99", "p99.9", "max");
+        printRow(out, "response", responseTime);
+        printRow(out, "service", serviceTime);
+    }
+
+    private static void printRow(PrintStream out, String label, LatencyHistogram.Snapshot snapshot) {
+        out.printf("%-14s", label);
+        for (double percentile : PERCENTILES) {
+            out.printf(" %10.3f", snapshot.percentile(percentile) / 1000.0);
+        }
+        out.printf(" %10.3f%n", snapshot.getMax() / 1000.0);
+    }
+}
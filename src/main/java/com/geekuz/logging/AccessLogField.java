@@ -0,0 +1,34 @@
+package com.geekuz.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A column of the access log. Lines hold the configured fields in order, separated by spaces,
+ * with {@code -} for a value that is not known.
+ */
+public enum AccessLogField {
+    /** When the exchange finished, ISO-8601 in UTC with milliseconds. */
+    TIME,
+    METHOD,
+    /** The raw request path, without the query string. */
+    PATH,
+    /** The matched route template, e.g. {@code /api/users/{id}}. */
+    ROUTE,
+    STATUS,
+    BYTES_IN,
+    BYTES_OUT,
+    /** Time from reading the request to writing the response, in microseconds. */
+    DURATION;
+
+    /** Parses a comma separated list such as {@code time,method,path,status}. */
+    public static List<AccessLogField> parseList(String value) {
+        List<AccessLogField> fields = new ArrayList<>();
+        for (String name : value.split(",")) {
+            if (!name.isBlank()) {
+                fields.add(valueOf(name.trim().toUpperCase().replace('-', '_')));
+            }
+        }
+        return fields;
+    }
+}
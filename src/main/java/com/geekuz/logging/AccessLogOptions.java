@@ -0,0 +1,46 @@
+package com.geekuz.logging;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Settings for {@link AsyncLogger}.
+ */
+public class AccessLogOptions {
+    private Path file = Paths.get("access.log");
+    private long maxFileBytes = 64L * 1024 * 1024;
+    private int maxFiles = 5;
+    private int ringSize = 16 * 1024;
+    private int maxPathLength = 256;
+    private int batchBytes = 64 * 1024;
+    private List<AccessLogField> fields = List.of(AccessLogField.TIME, AccessLogField.METHOD, AccessLogField.PATH,
+            AccessLogField.STATUS, AccessLogField.BYTES_OUT, AccessLogField.DURATION);
+
+    // Getters and setters
+    public Path getFile() { return file; }
+    public void setFile(Path file) { this.file = file; }
+
+    /** Size at which the file is rolled over to {@code file.1}. */
+    public long getMaxFileBytes() { return maxFileBytes; }
+    public void setMaxFileBytes(long maxFileBytes) { this.maxFileBytes = maxFileBytes; }
+
+    /** Rolled over files that are kept besides the current one. */
+    public int getMaxFiles() { return maxFiles; }
+    public void setMaxFiles(int maxFiles) { this.maxFiles = maxFiles; }
+
+    /** Events that can wait for the writer thread; rounded up to a power of two. */
+    public int getRingSize() { return ringSize; }
+    public void setRingSize(int ringSize) { this.ringSize = ringSize; }
+
+    /** Longer paths are truncated, so every event has the same fixed size. */
+    public int getMaxPathLength() { return maxPathLength; }
+    public void setMaxPathLength(int maxPathLength) { this.maxPathLength = maxPathLength; }
+
+    /** Formatted lines are collected in a buffer of this size and written with one call. */
+    public int getBatchBytes() { return batchBytes; }
+    public void setBatchBytes(int batchBytes) { this.batchBytes = batchBytes; }
+
+    public List<AccessLogField> getFields() { return fields; }
+    public void setFields(List<AccessLogField> fields) { this.fields = fields; }
+}
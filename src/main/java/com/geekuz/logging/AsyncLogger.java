@@ -0,0 +1,240 @@
+package com.geekuz.logging;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access and error log that keeps I/O off the request threads. Request threads publish
+ * fixed-size events into a {@link RingBuffer} without locking or allocating; a single writer
+ * thread formats everything that is waiting into one buffer and appends it to a
+ * {@link RollingFile} with a single write. When the writer falls a whole ring behind, new events
+ * are dropped and counted rather than making requests wait.
+ *
+ * Error events go to {@code System.err}, from the writer thread.
+ */
+public class AsyncLogger implements Closeable {
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    private static final DateTimeFormatter SECONDS =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    private final RingBuffer ring;
+    private final AccessLogField[] fields;
+    private final RollingFile file;
+    private final ByteBuffer out;
+    private final int maxLineLength;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Writer thread only: the formatted timestamp is reused within the same second
+    private long cachedSecond = Long.MIN_VALUE;
+    private byte[] cachedSecondBytes;
+
+    public AsyncLogger(AccessLogOptions options) throws IOException {
+        ring = new RingBuffer(options.getRingSize(), options.getMaxPathLength());
+        fields = options.getFields().toArray(new AccessLogField[0]);
+        file = new RollingFile(options.getFile(), options.getMaxFileBytes(), options.getMaxFiles());
+        // Room for the path plus every other field at its widest
+        maxLineLength = options.getMaxPathLength() + 256 + fields.length * 24;
+        out = ByteBuffer.allocateDirect(Math.max(options.getBatchBytes(), maxLineLength * 2));
+        writer = new Thread(this::drain, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Publishes an access log event; the path is copied out of {@code path} before returning.
+     *
+     * @param method the request method, or null if unknown
+     * @param route the matched route template, or null
+     * @return false if the event was dropped because the ring was full
+     */
+    public boolean access(String method, byte[] path, int pathFrom, int pathTo, String route, int status,
+                          long bytesIn, long bytesOut, long durationMicros) {
+        long sequence = ring.tryClaim();
+        if (sequence < 0) {
+            dropped.increment();
+            return false;
+        }
+        LogEvent event = ring.get(sequence);
+        try {
+            event.type = LogEvent.ACCESS;
+            event.epochMillis = System.currentTimeMillis();
+            event.method = method;
+            event.pathLength = Math.min(pathTo - pathFrom, event.path.length);
+            System.arraycopy(path, pathFrom, event.path, 0, event.pathLength);
+            event.route = route;
+            event.status = status;
+            event.bytesIn = bytesIn;
+            event.bytesOut = bytesOut;
+            event.durationMicros = durationMicros;
+        } finally {
+            ring.publish(sequence);
+        }
+        return true;
+    }
+
+    /**
+     * Publishes an error message to be printed on {@code System.err}.
+     *
+     * @return false if the message was dropped because the ring was full
+     */
+    public boolean error(String message) {
+        long sequence = ring.tryClaim();
+        if (sequence < 0) {
+            dropped.increment();
+            return false;
+        }
+        LogEvent event = ring.get(sequence);
+        event.type = LogEvent.ERROR;
+        event.message = message;
+        ring.publish(sequence);
+        return true;
+    }
+
+    /** Events dropped because the ring was full. */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private void drain() {
+        long next = 0;
+        while (true) {
+            LogEvent event = ring.poll(next);
+            if (event == null) {
+                flush();
+                if (!running && ring.claimed() == next) {
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            if (event.type == LogEvent.ERROR) {
+                System.err.println(event.message);
+                event.message = null;
+            } else {
+                if (out.remaining() < maxLineLength) {
+                    flush();
+                }
+                format(event);
+            }
+            ring.release(++next);
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            System.err.println("Error closing access log: " + e.getMessage());
+        }
+    }
+
+    private void flush() {
+        if (out.position() == 0) {
+            return;
+        }
+        out.flip();
+        try {
+            file.write(out);
+        } catch (IOException e) {
+            System.err.println("Error writing access log: " + e.getMessage());
+        }
+        out.clear();
+    }
+
+    private void format(LogEvent event) {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.put((byte) ' ');
+            }
+            switch (fields[i]) {
+                case TIME:
+                    putTime(event.epochMillis);
+                    break;
+                case METHOD:
+                    putAscii(event.method);
+                    break;
+                case PATH:
+                    if (event.pathLength == 0) {
+                        out.put((byte) '-');
+                    } else {
+                        out.put(event.path, 0, event.pathLength);
+                    }
+                    break;
+                case ROUTE:
+                    putAscii(event.route);
+                    break;
+                case STATUS:
+                    putLong(event.status);
+                    break;
+                case BYTES_IN:
+                    putLong(event.bytesIn);
+                    break;
+                case BYTES_OUT:
+                    putLong(event.bytesOut);
+                    break;
+                case DURATION:
+                    putLong(event.durationMicros);
+                    break;
+                default:
+                    out.put((byte) '-');
+            }
+        }
+        out.put((byte) '\n');
+    }
+
+    private void putTime(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedSecondBytes = SECONDS.format(Instant.ofEpochSecond(second)).getBytes(StandardCharsets.US_ASCII);
+        }
+        int millis = Math.floorMod(epochMillis, 1000);
+        out.put(cachedSecondBytes).put((byte) '.')
+                .put((byte) ('0' + millis / 100)).put((byte) ('0' + millis / 10 % 10)).put((byte) ('0' + millis % 10))
+                .put((byte) 'Z');
+    }
+
+    private void putAscii(String value) {
+        if (value == null) {
+            out.put((byte) '-');
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            out.put(c < 0x80 ? (byte) c : (byte) '?');
+        }
+    }
+
+    private void putLong(long value) {
+        if (value < 0) {
+            out.put((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * Writes out everything published so far, then stops the writer thread and closes the file.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
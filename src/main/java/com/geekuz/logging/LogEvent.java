@@ -0,0 +1,26 @@
+package com.geekuz.logging;
+
+/**
+ * One preallocated slot of the {@link RingBuffer}. Producers overwrite the fields in place, so
+ * publishing an access event copies the path but allocates nothing.
+ */
+final class LogEvent {
+    static final int ACCESS = 0;
+    static final int ERROR = 1;
+
+    int type;
+    long epochMillis;
+    String method;
+    final byte[] path;
+    int pathLength;
+    String route;
+    int status;
+    long bytesIn;
+    long bytesOut;
+    long durationMicros;
+    String message;
+
+    LogEvent(int maxPathLength) {
+        path = new byte[maxPathLength];
+    }
+}
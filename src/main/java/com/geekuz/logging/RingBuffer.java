@@ -0,0 +1,70 @@
+package com.geekuz.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer, single-consumer ring of {@link LogEvent}s. Producers claim a sequence
+ * with a CAS, fill the slot and publish it by storing the sequence in the slot's marker; the
+ * consumer reads slots in sequence order and frees them by advancing {@code consumed}. A producer
+ * that finds the ring full gets -1 instead of waiting.
+ */
+final class RingBuffer {
+    private final LogEvent[] slots;
+    private final int mask;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+
+    RingBuffer(int size, int maxPathLength) {
+        int capacity = Integer.highestOneBit(Math.max(2, size - 1)) << 1;
+        slots = new LogEvent[capacity];
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new LogEvent(maxPathLength);
+            published.set(i, -1);
+        }
+        mask = capacity - 1;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /** Claims the next slot, or returns -1 if the consumer is a whole ring behind. */
+    long tryClaim() {
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                return -1;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    LogEvent get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    void publish(long sequence) {
+        published.lazySet((int) sequence & mask, sequence);
+    }
+
+    /** The event at {@code sequence} if its producer has published it, otherwise null. */
+    LogEvent poll(long sequence) {
+        int index = (int) sequence & mask;
+        return published.get(index) == sequence ? slots[index] : null;
+    }
+
+    /** Hands every slot below {@code sequence} back to the producers. */
+    void release(long sequence) {
+        consumed = sequence;
+    }
+
+    /** Sequences claimed so far; equal to the consumer's position once everything is drained. */
+    long claimed() {
+        return claimed.get();
+    }
+}
@@ -8,26 +8,38 @@ import org.mapstruct.*;
 public interface AddressMapper {
     
     // Entity to DTO with custom mapping for fullAddress
-    @Mapping(target = "fullAddress", expression = "java(address.getStreet() + \", \" + address.getCountry())")
+    @Mapping(target = "fullAddress", expression = "java(formatFullAddress(address.getStreet(), address.getCountry()))")
     AddressDTO addressToAddressDTO(Address address);
     
-    // DTO to entity with custom mapping for street and country
-    @Mapping(target = "street", expression = "java(extractStreet(addressDTO.getFullAddress()))")
-    @Mapping(target = "country", expression = "java(extractCountry(addressDTO.getFullAddress()))")
+    // DTO to entity; street and country are split out of fullAddress together, after the other fields
+    @Mapping(target = "street", ignore = true)
+    @Mapping(target = "country", ignore = true)
     Address addressDTOToAddress(AddressDTO addressDTO);
     
-    // Helper methods for custom mappings
-    default String extractStreet(String fullAddress) {
-        if (fullAddress == null || !fullAddress.contains(",")) {
-            return null;
+    @AfterMapping
+    default void splitFullAddress(AddressDTO addressDTO, @MappingTarget Address address) {
+        String fullAddress = addressDTO.getFullAddress();
+        int comma = fullAddress != null ? fullAddress.indexOf(',') : -1;
+        if (comma < 0) {
+            return;
         }
-        return fullAddress.split(",")[0].trim();
+        address.setStreet(FullAddress.part(fullAddress, 0, comma));
+        address.setCountry(FullAddress.part(fullAddress, comma + 1, FullAddress.end(fullAddress, comma)));
+    }
+    
+    // Helper methods for custom mappings (named so they are only used from the expressions above)
+    @Named("formatFullAddress")
+    default String formatFullAddress(String street, String country) {
+        return FullAddress.format(street, country);
     }
     
+    @Named("extractStreet")
+    default String extractStreet(String fullAddress) {
+        return FullAddress.street(fullAddress);
+    }
+    
+    @Named("extractCountry")
     default String extractCountry(String fullAddress) {
-        if (fullAddress == null || !fullAddress.contains(",")) {
-            return null;
-        }
-        return fullAddress.split(",")[1].trim();
+        return FullAddress.country(fullAddress);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package com.geekuz.mapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Maps a list element by element into an array sized up front. Lists longer than the threshold
+ * are split in halves until each part is at most that long, and the parts are mapped in parallel
+ * on a fork-join pool. Each part fills its own slice of the shared array, so there is nothing to
+ * merge afterwards and the order is kept.
+ */
+final class BulkMapping {
+
+    private BulkMapping() {
+    }
+
+    /**
+     * @param pool the pool to split over, or null to map on the calling thread
+     * @return a fixed-size list, or null if {@code source} is null
+     */
+    @SuppressWarnings("unchecked")
+    static <S, T> List<T> map(List<S> source, Function<? super S, ? extends T> mapping, ForkJoinPool pool, int threshold) {
+        if (source == null) {
+            return null;
+        }
+        if (!(source instanceof RandomAccess)) {
+            source = new ArrayList<>(source);
+        }
+        Object[] target = new Object[source.size()];
+        int slice = Math.max(1, threshold);
+        if (pool == null || target.length <= slice) {
+            mapRange(source, target, 0, target.length, mapping);
+        } else {
+            pool.invoke(new Slice<>(source, target, 0, target.length, mapping, slice));
+        }
+        return (List<T>) Arrays.asList(target);
+    }
+
+    private static <S> void mapRange(List<S> source, Object[] target, int from, int to, Function<? super S, ?> mapping) {
+        for (int i = from; i < to; i++) {
+            target[i] = mapping.apply(source.get(i));
+        }
+    }
+
+    private static final class Slice<S> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<S> source;
+        private final Object[] target;
+        private final int from;
+        private final int to;
+        private final Function<? super S, ?> mapping;
+        private final int threshold;
+
+        Slice(List<S> source, Object[] target, int from, int to, Function<? super S, ?> mapping, int threshold) {
+            this.source = source;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+            this.mapping = mapping;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                mapRange(source, target, from, to, mapping);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Slice<>(source, target, from, mid, mapping, threshold),
+                    new Slice<>(source, target, mid, to, mapping, threshold));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.geekuz.mapper;
+
+/**
+ * Formats and parses the {@code "street, country"} form of {@code AddressDTO.fullAddress}. A
+ * missing part is written as empty and an empty part reads back as null, so addresses survive a
+ * round trip. Parsing walks the string once with {@code indexOf} and trims by index, without
+ * regular expressions or intermediate arrays. As before, text after a second comma is ignored.
+ */
+final class FullAddress {
+
+    private FullAddress() {
+    }
+
+    static String format(String street, String country) {
+        if (street == null && country == null) {
+            return null;
+        }
+        return (street != null ? street : "") + ", " + (country != null ? country : "");
+    }
+
+    /** The part before the first comma, or null if there is no comma. */
+    static String street(String fullAddress) {
+        int comma = fullAddress != null ? fullAddress.indexOf(',') : -1;
+        return comma < 0 ? null : part(fullAddress, 0, comma);
+    }
+
+    /** The part between the first comma and the next one, or null if there is no comma. */
+    static String country(String fullAddress) {
+        int comma = fullAddress != null ? fullAddress.indexOf(',') : -1;
+        return comma < 0 ? null : part(fullAddress, comma + 1, end(fullAddress, comma));
+    }
+
+    /** Trimmed substring, or null if nothing is left. */
+    static String part(String s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && s.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return from == to ? null : s.substring(from, to);
+    }
+
+    static int end(String fullAddress, int comma) {
+        int next = fullAddress.indexOf(',', comma + 1);
+        return next < 0 ? fullAddress.length() : next;
+    }
+}
@@ -1,46 +1,106 @@
 package com.geekuz.mapper;
 
 import com.geekuz.dto.UserDTO;
+import com.geekuz.entity.RoleSet;
 import com.geekuz.entity.User;
+import com.geekuz.entity.UserChanges;
+import com.geekuz.entity.UserField;
 import org.mapstruct.*;
 
 import java.time.LocalDate;
-import java.time.Period;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
 
 @Mapper(componentModel = "default", uses = {AddressMapper.class})
 public interface UserMapper {
     
-    // Basic mapping
-    @Mapping(target = "password", ignore = true) // Ignore sensitive fields
-    @Mapping(target = "roleNames", source = "roles") // Custom mapping
-    @Mapping(target = "age", expression = "java(calculateAge(user.getBirthDate()))") // Expression for calculated field
-    UserDTO userToUserDTO(User user);
-    
-    // Custom mapping method for roles to roleNames
-    default List<String> rolesToRoleNames(List<com.geekuz.entity.Role> roles) {
-        if (roles == null) {
-            return null;
-        }
-        return roles.stream()
-                .map(com.geekuz.entity.Role::getName)
-                .collect(Collectors.toList());
+    // Basic mapping, with the age taken on today's date
+    default UserDTO userToUserDTO(User user) {
+        return userToUserDTO(user, LocalDate.now());
+    }
+    
+    // Mapping with the age taken on a given date, so a batch reads the clock once
+    @Mapping(target = "roleNames", source = "roleSet") // Custom mapping
+    @Mapping(target = "age", expression = "java(calculateAge(user.getBirthDate(), today))") // Expression for calculated field
+    UserDTO userToUserDTO(User user, @Context LocalDate today);
+    
+    // Users with the same roles share one RoleSet, and with it one list of names
+    default List<String> roleSetToRoleNames(RoleSet roleSet) {
+        return roleSet != null ? roleSet.names() : null;
     }
     
     // Method to calculate age from birthDate
     default int calculateAge(LocalDate birthDate) {
+        return calculateAge(birthDate, LocalDate.now());
+    }
+    
+    // Whole years from birthDate to today, the same as Period.between(birthDate, today).getYears()
+    default int calculateAge(LocalDate birthDate, LocalDate today) {
         if (birthDate == null) {
             return 0;
         }
-        return Period.between(birthDate, LocalDate.now()).getYears();
+        long months = (today.getYear() - (long) birthDate.getYear()) * 12
+                + today.getMonthValue() - birthDate.getMonthValue();
+        int days = today.getDayOfMonth() - birthDate.getDayOfMonth();
+        if (months > 0 && days < 0) {
+            months--;
+        } else if (months < 0 && days > 0) {
+            months++;
+        }
+        return (int) (months / 12);
+    }
+    
+    // Bulk mapping into a presized, fixed-size list; ages are all taken on the same date
+    default List<UserDTO> usersToUserDTOs(List<User> users) {
+        return usersToUserDTOs(users, null, Integer.MAX_VALUE);
+    }
+    
+    // Bulk mapping split over the pool once the list is longer than threshold
+    default List<UserDTO> usersToUserDTOs(List<User> users, ForkJoinPool pool, int threshold) {
+        LocalDate today = LocalDate.now();
+        return BulkMapping.map(users, user -> userToUserDTO(user, today), pool, threshold);
+    }
+    
+    default List<User> userDTOsToUsers(List<UserDTO> userDTOs) {
+        return userDTOsToUsers(userDTOs, null, Integer.MAX_VALUE);
+    }
+    
+    default List<User> userDTOsToUsers(List<UserDTO> userDTOs, ForkJoinPool pool, int threshold) {
+        return BulkMapping.map(userDTOs, this::userDTOToUser, pool, threshold);
     }
     
     // Mapping from DTO to entity
-    @Mapping(target = "roles", ignore = true) // We'll handle this separately
+    @Mapping(target = "password", ignore = true) // Ignore sensitive fields
+    @Mapping(target = "roles", ignore = true) // Set through roleSet
+    @Mapping(target = "roleSet", source = "roleNames")
     User userDTOToUser(UserDTO userDTO);
     
+    // Shallow copy, so a stored user can be updated copy-on-write; the role set is shared
+    @Mapping(target = "roles", ignore = true)
+    User copyUser(User user);
+    
+    // Throws IllegalArgumentException for names that are not registered roles
+    default RoleSet roleNamesToRoleSet(List<String> roleNames) {
+        return RoleSet.ofNames(roleNames);
+    }
+    
     // Update existing entity with DTO values
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "password", ignore = true) // Ignore sensitive fields
+    @Mapping(target = "roles", ignore = true)
+    @Mapping(target = "roleSet", source = "roleNames")
     void updateUserFromDTO(UserDTO userDTO, @MappingTarget User user);
+    
+    // Copy-on-write update: applies the DTO to a copy of user, keeping its id, and reports which
+    // fields changed. An address equal to the old one is swapped back for the old instance.
+    default UserChanges updateCopyFromDTO(UserDTO userDTO, User user) {
+        User updated = copyUser(user);
+        updateUserFromDTO(userDTO, updated);
+        updated.setId(user.getId());
+        UserChanges changes = UserChanges.between(user, updated);
+        if (!changes.contains(UserField.ADDRESS)) {
+            updated.setAddress(user.getAddress());
+        }
+        return changes;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.geekuz.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HDR-style latency histogram in microseconds. Values below 64 get exact buckets; above that
+ * every power of two is split into 32 linear sub-buckets, which keeps the relative error under
+ * about 3% up to an hour. Recording is a single atomic increment on one of several stripes
+ * chosen by thread, so request threads neither allocate nor contend on a shared counter; the
+ * stripes are only summed when the histogram is read.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final long MAX_VALUE = (1L << 32) - 1;
+    private static final int BUCKETS = bucketOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray[] stripes;
+    private final int mask;
+
+    public LatencyHistogram() {
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        stripes = new AtomicLongArray[Math.min(stripeCount, 64)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+        mask = stripes.length - 1;
+    }
+
+    public void recordMicros(long micros) {
+        int bucket = bucketOf(Math.max(0, Math.min(micros, MAX_VALUE)));
+        stripes[stripe()].getAndIncrement(bucket);
+    }
+
+    /**
+     * Records {@code micros} together with the samples a client sending every
+     * {@code expectedIntervalMicros} would have taken while it waited for this one, correcting
+     * for coordinated omission the way HdrHistogram's {@code recordValueWithExpectedInterval}
+     * does. An interval of 0 records just the value.
+     */
+    public void recordMicros(long micros, long expectedIntervalMicros) {
+        recordMicros(micros);
+        if (expectedIntervalMicros <= 0) {
+            return;
+        }
+        for (long missed = micros - expectedIntervalMicros; missed >= expectedIntervalMicros; missed -= expectedIntervalMicros) {
+            recordMicros(missed);
+        }
+    }
+
+    /**
+     * Merges the stripes into a snapshot that can be queried for percentiles.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = stripe.get(i);
+                counts[i] += count;
+                total += count;
+            }
+        }
+        return new Snapshot(counts, total);
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) ((value >>> shift) - HALF);
+    }
+
+    /** Largest value that falls into the bucket. */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int offset = bucket - SUB_BUCKETS;
+        int shift = offset / HALF + 1;
+        long sub = offset % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    public static class Snapshot {
+        private final long[] counts;
+        private final long total;
+
+        Snapshot(long[] counts, long total) {
+            this.counts = counts;
+            this.total = total;
+        }
+
+        public long getCount() { return total; }
+
+        /** The largest recorded value, as the upper bound of its bucket. */
+        public long getMax() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return highestValueOf(i);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * The value at the given percentile (0-100) in microseconds, reported as the upper
+         * bound of its bucket.
+         */
+        public long percentile(double percentile) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestValueOf(i);
+                }
+            }
+            return highestValueOf(counts.length - 1);
+        }
+    }
+}
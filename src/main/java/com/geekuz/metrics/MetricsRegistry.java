@@ -0,0 +1,105 @@
+package com.geekuz.metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the metrics of one server and renders them in the Prometheus text exposition format.
+ */
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final CopyOnWriteArrayList<RouteMetrics> routes = new CopyOnWriteArrayList<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+    public RouteMetrics route(String method, String route) {
+        RouteMetrics metrics = new RouteMetrics(method, route);
+        routes.add(metrics);
+        return metrics;
+    }
+
+    /**
+     * Registers a value that is read at scrape time, e.g. the number of open connections.
+     * Registering the same name again replaces the previous gauge.
+     */
+    public void gauge(String name, String help, LongSupplier value) {
+        gauges.put(name, new Gauge("gauge", help, value));
+    }
+
+    /**
+     * Like {@link #gauge} for a value that only ever grows, such as rejected requests; it is
+     * exported with the counter type so rates can be taken from it.
+     */
+    public void counter(String name, String help, LongSupplier value) {
+        gauges.put(name, new Gauge("counter", help, value));
+    }
+
+    public byte[] scrape() {
+        StringBuilder out = new StringBuilder(4096);
+
+        out.append("# HELP http_requests_total Requests handled, by route and status code.\n");
+        out.append("# TYPE http_requests_total counter\n");
+        for (RouteMetrics route : routes) {
+            for (int status : route.seenStatuses()) {
+                labels(out.append("http_requests_total"), route).append(",code=\"").append(status).append("\"} ")
+                        .append(route.getStatusCount(status)).append('\n');
+            }
+        }
+
+        out.append("# HELP http_request_bytes_total Request bytes received, by route.\n");
+        out.append("# TYPE http_request_bytes_total counter\n");
+        for (RouteMetrics route : routes) {
+            labels(out.append("http_request_bytes_total"), route).append("} ").append(route.getBytesIn()).append('\n');
+        }
+
+        out.append("# HELP http_response_bytes_total Response bytes sent, by route.\n");
+        out.append("# TYPE http_response_bytes_total counter\n");
+        for (RouteMetrics route : routes) {
+            labels(out.append("http_response_bytes_total"), route).append("} ").append(route.getBytesOut()).append('\n');
+        }
+
+        out.append("# HELP http_request_duration_seconds Time from parsed request head to response written.\n");
+        out.append("# TYPE http_request_duration_seconds summary\n");
+        for (RouteMetrics route : routes) {
+            LatencyHistogram.Snapshot snapshot = route.getLatency().snapshot();
+            for (double quantile : QUANTILES) {
+                labels(out.append("http_request_duration_seconds"), route).append(",quantile=\"").append(quantile)
+                        .append("\"} ").append(seconds(snapshot.percentile(quantile * 100))).append('\n');
+            }
+            labels(out.append("http_request_duration_seconds_sum"), route).append("} ")
+                    .append(seconds(route.getLatencyMicrosSum())).append('\n');
+            labels(out.append("http_request_duration_seconds_count"), route).append("} ")
+                    .append(snapshot.getCount()).append('\n');
+        }
+
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            out.append("# HELP ").append(entry.getKey()).append(' ').append(entry.getValue().help).append('\n');
+            out.append("# TYPE ").append(entry.getKey()).append(' ').append(entry.getValue().type).append('\n');
+            out.append(entry.getKey()).append(' ').append(entry.getValue().value.getAsLong()).append('\n');
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static StringBuilder labels(StringBuilder out, RouteMetrics route) {
+        return out.append("{method=\"").append(route.getMethod()).append("\",route=\"").append(route.getRoute()).append('"');
+    }
+
+    private static String seconds(long micros) {
+        return String.valueOf(micros / 1_000_000.0);
+    }
+
+    private static final class Gauge {
+        final String type;
+        final String help;
+        final LongSupplier value;
+
+        Gauge(String type, String help, LongSupplier value) {
+            this.type = type;
+            this.help = help;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.geekuz.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one route. All updates go to {@link LongAdder}s or the striped
+ * {@link LatencyHistogram}, so recording never blocks and does not allocate once a status code
+ * has been seen.
+ */
+public class RouteMetrics {
+    private static final int MIN_STATUS = 100;
+    private static final int MAX_STATUS = 599;
+
+    private final String method;
+    private final String route;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder latencyMicrosSum = new LongAdder();
+    private final AtomicReferenceArray<LongAdder> statuses = new AtomicReferenceArray<>(MAX_STATUS - MIN_STATUS + 1);
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    RouteMetrics(String method, String route) {
+        this.method = method;
+        this.route = route;
+    }
+
+    public void record(int status, long bytesReceived, long bytesSent, long latencyNanos) {
+        long micros = latencyNanos / 1000;
+        requests.increment();
+        bytesIn.add(bytesReceived);
+        bytesOut.add(bytesSent);
+        latencyMicrosSum.add(micros);
+        latency.recordMicros(micros);
+        statusCounter(status).increment();
+    }
+
+    private LongAdder statusCounter(int status) {
+        int index = Math.max(MIN_STATUS, Math.min(MAX_STATUS, status)) - MIN_STATUS;
+        LongAdder counter = statuses.get(index);
+        if (counter == null) {
+            statuses.compareAndSet(index, null, new LongAdder());
+            counter = statuses.get(index);
+        }
+        return counter;
+    }
+
+    public String getMethod() { return method; }
+
+    public String getRoute() { return route; }
+
+    public long getRequests() { return requests.sum(); }
+
+    public long getBytesIn() { return bytesIn.sum(); }
+
+    public long getBytesOut() { return bytesOut.sum(); }
+
+    public long getLatencyMicrosSum() { return latencyMicrosSum.sum(); }
+
+    public LatencyHistogram getLatency() { return latency; }
+
+    /** Number of responses sent with the given status code. */
+    public long getStatusCount(int status) {
+        LongAdder counter = statuses.get(status - MIN_STATUS);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    int[] seenStatuses() {
+        int count = 0;
+        for (int i = 0; i < statuses.length(); i++) {
+            if (statuses.get(i) != null) {
+                count++;
+            }
+        }
+        int[] seen = new int[count];
+        int n = 0;
+        for (int i = 0; i < statuses.length() && n < count; i++) {
+            if (statuses.get(i) != null) {
+                seen[n++] = i + MIN_STATUS;
+            }
+        }
+        return seen;
+    }
+}
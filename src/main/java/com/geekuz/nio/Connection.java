@@ -0,0 +1,43 @@
+package com.geekuz.nio;
+
+import com.geekuz.http.BlockingConnection;
+import com.geekuz.http.FileRegion;
+import com.geekuz.http.HttpRequest;
+import com.geekuz.http.HttpResponse;
+import com.geekuz.http.RequestBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * Per-connection state attached to a selection key.
+ */
+class Connection {
+    static final int BUFFER_SIZE = 8192;
+
+    final SocketChannel channel;
+    final RequestBuffer in = new RequestBuffer(BUFFER_SIZE);
+    final HttpRequest request = new HttpRequest();
+    final HttpResponse response = new HttpResponse();
+    // Responses waiting to be written, in request order
+    final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+    // File body sent after the queued bytes; later requests wait until it is done
+    FileRegion file;
+    int requests;
+    boolean closeAfterWrite;
+    long lastActive = System.nanoTime();
+    // Work that needs blocking I/O, run by a worker thread while the selector leaves the channel alone
+    BlockingStep offloaded;
+
+    Connection(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    @FunctionalInterface
+    interface BlockingStep {
+        /** Returns whether the connection stays open. */
+        boolean run(BlockingConnection connection) throws IOException;
+    }
+}
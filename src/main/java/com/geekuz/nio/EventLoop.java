@@ -0,0 +1,405 @@
+package com.geekuz.nio;
+
+import com.geekuz.http.BlockingConnection;
+import com.geekuz.http.CachedResponse;
+import com.geekuz.http.FileRegion;
+import com.geekuz.http.HttpMethod;
+import com.geekuz.http.HttpRequest;
+import com.geekuz.http.HttpRequestParser;
+import com.geekuz.http.HttpResponse;
+import com.geekuz.http.HttpResponses;
+import com.geekuz.http.Route;
+import com.geekuz.http.Router;
+import com.geekuz.http.ServerOptions;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single selector thread serving many connections. Channels are handed over by the acceptor
+ * through {@link #register(SocketChannel)} and from then on are only touched by this thread.
+ * Requests whose body is not buffered completely, streamed responses and routes with a
+ * {@link com.geekuz.http.Handler#isBlocking() blocking} handler need a thread that may block;
+ * for those the channel is taken off the selector and served by a worker, which hands it back
+ * afterwards.
+ */
+class EventLoop implements Runnable {
+    private final Selector selector;
+    private final Queue<Connection> pending = new ConcurrentLinkedQueue<>();
+    private final List<Connection> offloads = new ArrayList<>();
+    private final ServerOptions options;
+    private final Router router;
+    private final AtomicInteger activeConnections;
+    private final Executor blockingWorkers;
+    private final long selectTimeoutMillis;
+    private long lastIdleCheck = System.nanoTime();
+    private volatile boolean running = true;
+
+    EventLoop(ServerOptions options, Router router, AtomicInteger activeConnections, Executor blockingWorkers)
+            throws IOException {
+        this.selector = Selector.open();
+        this.options = options;
+        this.router = router;
+        this.activeConnections = activeConnections;
+        this.blockingWorkers = blockingWorkers;
+        this.selectTimeoutMillis = Math.max(1, Math.min(1000, options.getIdleTimeoutMillis()));
+    }
+
+    void register(SocketChannel channel) {
+        register(new Connection(channel));
+    }
+
+    private void register(Connection connection) {
+        pending.add(connection);
+        selector.wakeup();
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select(selectTimeoutMillis);
+                registerPending();
+                processSelected();
+                while (!offloads.isEmpty()) {
+                    startOffloads();
+                    processSelected();
+                }
+
+                if (System.nanoTime() - lastIdleCheck >= TimeUnit.MILLISECONDS.toNanos(selectTimeoutMillis)) {
+                    closeIdle();
+                }
+            } catch (IOException e) {
+                router.error("Event loop error: " + e.getMessage());
+            }
+        }
+        closeAll();
+    }
+
+    private void registerPending() {
+        Connection connection;
+        while ((connection = pending.poll()) != null) {
+            SelectionKey key;
+            try {
+                key = connection.channel.register(selector, SelectionKey.OP_READ, connection);
+            } catch (IOException e) {
+                closeQuietly(connection.channel);
+                activeConnections.decrementAndGet();
+                continue;
+            }
+            if (connection.in.size() > 0) {
+                // Handed back by a worker with pipelined requests already buffered
+                try {
+                    processRequests(key, connection);
+                } catch (IOException e) {
+                    close(key);
+                }
+            }
+        }
+    }
+
+    private void processSelected() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            process(key);
+        }
+    }
+
+    private void process(SelectionKey key) {
+        try {
+            if (key.isValid() && key.isReadable()) {
+                read(key);
+            }
+            if (key.isValid() && key.isWritable()) {
+                write(key);
+            }
+        } catch (IOException e) {
+            close(key);
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+
+        if (connection.in.readFrom(channel) < 0) {
+            close(key);
+            return;
+        }
+        connection.lastActive = System.nanoTime();
+        processRequests(key, connection);
+    }
+
+    /**
+     * Answers every complete request head in the input buffer, so pipelined requests get their
+     * responses queued in order before anything is written.
+     */
+    private void processRequests(SelectionKey key, Connection connection) throws IOException {
+        while (!connection.closeAfterWrite && connection.file == null) {
+            int headEnd = connection.in.findHeadEnd();
+            if (headEnd < 0) {
+                if (connection.in.isFull()) {
+                    connection.out.add(ByteBuffer.wrap(HttpResponses.HEADERS_TOO_LARGE.bytes(false)));
+                    connection.closeAfterWrite = true;
+                }
+                break;
+            }
+
+            HttpRequest request = connection.request;
+            long startNanos = System.nanoTime();
+            if (HttpRequestParser.parse(connection.in.array(), 0, headEnd, request) <= 0) {
+                connection.out.add(ByteBuffer.wrap(HttpResponses.BAD_REQUEST.bytes(false)));
+                connection.closeAfterWrite = true;
+                break;
+            }
+
+            // A body that fits into the buffer is awaited here, anything else is read by a worker
+            int bodyLength = 0;
+            if (request.hasBody()) {
+                long fullLength = headEnd + request.contentLength();
+                if (request.isChunked() || fullLength > connection.in.array().length) {
+                    connection.requests++;
+                    boolean mayKeepAlive = connection.requests < options.getMaxRequestsPerConnection();
+                    offload(key, connection, blocking -> blocking.serveOne(mayKeepAlive));
+                    return;
+                }
+                if (fullLength > connection.in.size()) {
+                    break;
+                }
+                bodyLength = (int) request.contentLength();
+                request.attachBody(connection.in, headEnd, null);
+            }
+
+            connection.requests++;
+            boolean mayKeepAlive = connection.requests < options.getMaxRequestsPerConnection();
+            if (router.hasBlockingRoutes()) {
+                Route match = router.match(request);
+                if (match != null && match.getHandler().isBlocking()) {
+                    // The worker parses the buffered request again and runs the handler itself
+                    offload(key, connection, blocking -> blocking.serveOne(mayKeepAlive));
+                    return;
+                }
+            }
+            boolean keepAlive = request.isKeepAlive() && mayKeepAlive;
+            HttpResponse response = connection.response;
+            Route route = router.dispatch(request, response);
+            if (response.isStreaming()) {
+                offload(key, connection, blocking -> blocking.finish(route, headEnd, startNanos, keepAlive));
+                return;
+            }
+            long queued = queue(connection, request.method() != HttpMethod.HEAD, keepAlive);
+            router.record(request, route, response.getStatus(), headEnd + bodyLength, queued, startNanos);
+            connection.closeAfterWrite = !keepAlive;
+            connection.in.consume(headEnd + bodyLength);
+        }
+
+        if (!connection.out.isEmpty()) {
+            // Stop reading until the queued responses are flushed
+            key.interestOps(SelectionKey.OP_WRITE);
+            write(key);
+        }
+    }
+
+    /**
+     * Queues the response for writing and returns its size. Latency recorded by the caller
+     * therefore ends when the response is queued, not when the client has received it.
+     */
+    private static long queue(Connection connection, boolean withBody, boolean keepAlive) {
+        HttpResponse response = connection.response;
+        CachedResponse cached = response.getCached();
+        if (cached != null) {
+            byte[] bytes = cached.bytes(keepAlive);
+            int length = withBody ? bytes.length : cached.headLength(keepAlive);
+            connection.out.add(ByteBuffer.wrap(bytes, 0, length));
+            return length;
+        }
+        byte[] head = HttpResponses.head(response, keepAlive);
+        connection.out.add(ByteBuffer.wrap(head));
+        FileRegion file = response.getFile();
+        if (file != null) {
+            if (!withBody) {
+                file.release();
+                return head.length;
+            }
+            connection.file = file;
+            return head.length + file.count();
+        }
+        if (withBody && response.getBody().length > 0) {
+            connection.out.add(ByteBuffer.wrap(response.getBody()));
+            return head.length + response.getBody().length;
+        }
+        return head.length;
+    }
+
+    /**
+     * Takes the connection off the selector so {@code step} can run with blocking I/O on a
+     * worker. The channel can only be switched to blocking mode once the selector has dropped
+     * the cancelled key, which happens in {@link #startOffloads()}.
+     */
+    private void offload(SelectionKey key, Connection connection, Connection.BlockingStep step) {
+        connection.offloaded = step;
+        key.cancel();
+        offloads.add(connection);
+    }
+
+    private void startOffloads() throws IOException {
+        selector.selectNow();
+        for (Connection connection : offloads) {
+            try {
+                connection.channel.configureBlocking(true);
+                blockingWorkers.execute(() -> serveBlocking(connection));
+            } catch (IOException | RejectedExecutionException e) {
+                closeQuietly(connection.channel);
+                activeConnections.decrementAndGet();
+            }
+        }
+        offloads.clear();
+    }
+
+    /**
+     * Runs on a worker: writes the responses still queued for earlier requests, then the
+     * offloaded step, and returns the connection to this loop if it stays open.
+     */
+    private void serveBlocking(Connection connection) {
+        SocketChannel channel = connection.channel;
+        boolean keepAlive = false;
+        try {
+            Socket socket = channel.socket();
+            socket.setSoTimeout(options.getIdleTimeoutMillis());
+            for (ByteBuffer buffer : connection.out) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            connection.out.clear();
+            BlockingConnection blocking = new BlockingConnection(
+                    socket, connection.in, connection.request, connection.response, router, options);
+            keepAlive = connection.offloaded.run(blocking);
+            blocking.out().flush();
+            if (keepAlive) {
+                channel.configureBlocking(false);
+            }
+        } catch (IOException e) {
+            keepAlive = false;
+        }
+        connection.offloaded = null;
+        if (keepAlive && running) {
+            connection.lastActive = System.nanoTime();
+            register(connection);
+        } else {
+            closeQuietly(channel);
+            activeConnections.decrementAndGet();
+        }
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+
+        while (!connection.out.isEmpty()) {
+            ByteBuffer buffer = connection.out.peek();
+            channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                return;
+            }
+            connection.out.poll();
+            connection.lastActive = System.nanoTime();
+        }
+
+        FileRegion file = connection.file;
+        if (file != null) {
+            while (!file.isDone()) {
+                if (file.transferTo(channel) == 0) {
+                    return;
+                }
+                connection.lastActive = System.nanoTime();
+            }
+            file.release();
+            connection.file = null;
+            if (!connection.closeAfterWrite) {
+                // Requests that arrived behind the file were held back until now
+                key.interestOps(SelectionKey.OP_READ);
+                processRequests(key, connection);
+                return;
+            }
+        }
+
+        if (connection.closeAfterWrite) {
+            close(key);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Closes connections that have neither read nor written anything within the idle timeout.
+     */
+    private void closeIdle() {
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(options.getIdleTimeoutMillis());
+        for (SelectionKey key : selector.keys()) {
+            Connection connection = (Connection) key.attachment();
+            if (connection != null && now - connection.lastActive > idleNanos) {
+                close(key);
+            }
+        }
+        lastIdleCheck = now;
+    }
+
+    private void close(SelectionKey key) {
+        if (key.isValid()) {
+            activeConnections.decrementAndGet();
+        }
+        Connection connection = (Connection) key.attachment();
+        if (connection != null && connection.file != null) {
+            connection.file.release();
+            connection.file = null;
+        }
+        key.cancel();
+        closeQuietly(key.channel());
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            closeQuietly(key.channel());
+        }
+        Connection connection;
+        while ((connection = pending.poll()) != null) {
+            closeQuietly(connection.channel);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private static void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+}
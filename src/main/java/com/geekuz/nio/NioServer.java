@@ -0,0 +1,199 @@
+package com.geekuz.nio;
+
+import com.geekuz.Routes;
+import com.geekuz.http.CachedResponse;
+import com.geekuz.http.HttpResponses;
+import com.geekuz.http.Router;
+import com.geekuz.http.ServerOptions;
+import com.geekuz.http.Sockets;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking variant of {@code PureServer}: the calling thread accepts connections and hands
+ * them round-robin to a small group of selector driven event loops, so a slow client only costs
+ * a registered key instead of a whole worker thread.
+ */
+public class NioServer {
+    private final int port;
+    private final int eventLoopCount;
+    private final ServerOptions options;
+    private final Router router;
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final CachedResponse serviceUnavailable;
+    private volatile Acceptor[] acceptors = new Acceptor[0];
+    // Serves requests with streamed bodies, which cannot be handled on an event loop
+    private ExecutorService blockingWorkers;
+    private volatile boolean running = false;
+
+    public NioServer(int port) {
+        this(port, Runtime.getRuntime().availableProcessors());
+    }
+
+    public NioServer(int port, int eventLoopCount) {
+        this(port, eventLoopCount, new ServerOptions());
+    }
+
+    public NioServer(int port, int eventLoopCount, ServerOptions options) {
+        this(port, eventLoopCount, options, Routes.defaults());
+    }
+
+    public NioServer(int port, int eventLoopCount, ServerOptions options, Router router) {
+        if (eventLoopCount < 1) {
+            throw new IllegalArgumentException("eventLoopCount must be positive");
+        }
+        this.port = port;
+        this.eventLoopCount = eventLoopCount;
+        this.options = options;
+        this.router = router;
+        this.serviceUnavailable = HttpResponses.serviceUnavailable(options.getRetryAfterSeconds());
+        router.metrics().gauge("http_active_connections", "Open connections.", activeConnections::get);
+    }
+
+    /**
+     * Opens the listening sockets and accepts connections on the calling thread until
+     * {@link #stop()}. With several acceptors the event loops are split between them and each
+     * acceptor only feeds its own loops.
+     */
+    public void start() throws IOException {
+        int count = Math.max(1, Math.min(options.getAcceptors(), eventLoopCount));
+        // Without SO_REUSEPORT the acceptors share one listening socket
+        boolean reusePort = count > 1 && Sockets.isReusePortSupported();
+        Acceptor[] created = new Acceptor[count];
+        blockingWorkers = options.getExecutionMode().newExecutor(options.getWorkerThreads(), "nio-blocking");
+        try {
+            for (int i = 0; i < count; i++) {
+                ServerSocketChannel channel = i == 0 || reusePort
+                        ? Sockets.listen(port, options, reusePort)
+                        : created[0].serverChannel;
+                EventLoop[] loops = new EventLoop[eventLoopCount / count + (i < eventLoopCount % count ? 1 : 0)];
+                for (int j = 0; j < loops.length; j++) {
+                    loops[j] = new EventLoop(options, router, activeConnections, blockingWorkers);
+                }
+                created[i] = new Acceptor(channel, loops);
+            }
+        } catch (IOException e) {
+            for (Acceptor acceptor : created) {
+                if (acceptor != null) {
+                    acceptor.close();
+                }
+            }
+            blockingWorkers.shutdown();
+            throw e;
+        }
+
+        int loop = 0;
+        for (Acceptor acceptor : created) {
+            for (EventLoop eventLoop : acceptor.eventLoops) {
+                new Thread(eventLoop, "event-loop-" + loop++).start();
+            }
+        }
+        acceptors = created;
+        running = true;
+        System.out.println("NIO server started on port " + port + " with " + eventLoopCount + " event loops and "
+                + count + (reusePort ? " SO_REUSEPORT" : "") + " acceptor" + (count > 1 ? "s" : ""));
+
+        for (int i = 1; i < count; i++) {
+            new Thread(created[i], "acceptor-" + i).start();
+        }
+        created[0].run();
+    }
+
+    /**
+     * One accept loop feeding its own group of event loops round-robin.
+     */
+    private class Acceptor implements Runnable {
+        final ServerSocketChannel serverChannel;
+        final EventLoop[] eventLoops;
+
+        Acceptor(ServerSocketChannel serverChannel, EventLoop[] eventLoops) {
+            this.serverChannel = serverChannel;
+            this.eventLoops = eventLoops;
+        }
+
+        @Override
+        public void run() {
+            int next = 0;
+            while (running) {
+                try {
+                    SocketChannel channel = serverChannel.accept();
+                    if (activeConnections.incrementAndGet() > options.getMaxConnections()) {
+                        // Still in blocking mode here, so the 503 is written in one go
+                        activeConnections.decrementAndGet();
+                        reject(channel, serviceUnavailable);
+                        continue;
+                    }
+                    try {
+                        Sockets.configure(channel, options);
+                        channel.configureBlocking(false);
+                    } catch (IOException e) {
+                        // Typically a peer that reset right after connecting
+                        activeConnections.decrementAndGet();
+                        closeQuietly(channel);
+                        throw e;
+                    }
+                    eventLoops[next].register(channel);
+                    next = (next + 1) % eventLoops.length;
+                } catch (IOException e) {
+                    if (running) {
+                        System.err.println("Error accepting connection: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        void close() {
+            try {
+                serverChannel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing server: " + e.getMessage());
+            }
+            for (EventLoop eventLoop : eventLoops) {
+                if (eventLoop != null) {
+                    eventLoop.shutdown();
+                }
+            }
+        }
+    }
+
+    private void reject(SocketChannel channel, CachedResponse response) {
+        try {
+            channel.write(ByteBuffer.wrap(response.bytes(false)));
+        } catch (IOException e) {
+            // The client is gone already
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    public void stop() {
+        running = false;
+        for (Acceptor acceptor : acceptors) {
+            acceptor.close();
+        }
+        if (blockingWorkers != null) {
+            blockingWorkers.shutdown();
+        }
+    }
+}
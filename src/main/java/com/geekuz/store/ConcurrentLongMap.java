@@ -0,0 +1,156 @@
+package com.geekuz.store;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe map from primitive {@code long} keys to objects, split into segments that each
+ * hold a {@link LongObjectMap} and a {@link StampedLock}. Writers take their segment's write
+ * lock; readers use an optimistic stamp and only retry if a write to the same segment overlapped,
+ * so lookups never block writers and never take a lock in the common case.
+ */
+public class ConcurrentLongMap<V> {
+    private static final int OPTIMISTIC_ATTEMPTS = 3;
+
+    private final Segment<V>[] segments;
+    private final int shift;
+
+    public ConcurrentLongMap() {
+        this(64, 1024);
+    }
+
+    /**
+     * @param segments number of independently locked segments, rounded up to a power of two
+     * @param expectedSize entries to size the tables for up front
+     */
+    public ConcurrentLongMap(int segments, int expectedSize) {
+        int count = Integer.highestOneBit(Math.max(2, segments) - 1) << 1;
+        @SuppressWarnings("unchecked")
+        Segment<V>[] table = (Segment<V>[]) new Segment<?>[count];
+        this.segments = table;
+        for (int i = 0; i < count; i++) {
+            this.segments[i] = new Segment<>(expectedSize / count);
+        }
+        // Segments are picked by the high bits of the mixed key, the tables use the low bits
+        shift = 64 - Integer.numberOfTrailingZeros(count);
+    }
+
+    public V get(long key) {
+        Segment<V> segment = segmentFor(key);
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = segment.lock.tryOptimisticRead();
+            if (stamp != 0) {
+                V value = segment.map.get(key);
+                if (segment.lock.validate(stamp)) {
+                    return value;
+                }
+            }
+            Thread.onSpinWait();
+        }
+        long stamp = segment.lock.readLock();
+        try {
+            return segment.map.get(key);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /** @return the previous value, or null */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        Segment<V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.map.put(key, value);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /** @return the removed value, or null */
+    public V remove(long key) {
+        Segment<V> segment = segmentFor(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.map.remove(key);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            long stamp = segment.lock.tryOptimisticRead();
+            int count = segment.map.size();
+            if (!segment.lock.validate(stamp)) {
+                stamp = segment.lock.readLock();
+                try {
+                    count = segment.map.size();
+                } finally {
+                    segment.lock.unlockRead(stamp);
+                }
+            }
+            size += count;
+        }
+        return size;
+    }
+
+    /**
+     * Calls {@code action} for every entry. Each segment is copied with an optimistic read and
+     * walked without a lock, so the result is consistent per segment but not across segments.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Entries<? super V> action) {
+        for (Segment<V> segment : segments) {
+            LongObjectMap.Table copy = segment.copy();
+            int last = copy.keys.length - 1;
+            for (int i = 0; i < last; i++) {
+                if (copy.keys[i] != 0) {
+                    action.accept(copy.keys[i], (V) copy.values[i]);
+                }
+            }
+            if (copy.values[last] != null) {
+                action.accept(0, (V) copy.values[last]);
+            }
+        }
+    }
+
+    private Segment<V> segmentFor(long key) {
+        return segments[(int) (LongObjectMap.mix(key) >>> shift)];
+    }
+
+    @FunctionalInterface
+    public interface Entries<V> {
+        void accept(long key, V value);
+    }
+
+    private static final class Segment<V> {
+        final StampedLock lock = new StampedLock();
+        final LongObjectMap<V> map;
+
+        Segment(int expectedSize) {
+            map = new LongObjectMap<>(expectedSize);
+        }
+
+        LongObjectMap.Table copy() {
+            for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+                long stamp = lock.tryOptimisticRead();
+                if (stamp != 0) {
+                    LongObjectMap.Table copy = map.copy();
+                    if (lock.validate(stamp)) {
+                        return copy;
+                    }
+                }
+                Thread.onSpinWait();
+            }
+            long stamp = lock.readLock();
+            try {
+                return map.copy();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.geekuz.store;
+
+/**
+ * Thrown when a user would take a username or email that another user already has.
+ */
+public class DuplicateUserException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String field;
+
+    public DuplicateUserException(String field, String value) {
+        super(field + " already taken: " + value);
+        this.field = field;
+    }
+
+    /** {@code username} or {@code email}. */
+    public String getField() { return field; }
+}
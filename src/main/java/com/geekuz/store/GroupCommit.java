@@ -0,0 +1,116 @@
+package com.geekuz.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Makes writes durable in groups. A caller that has written asks for a sync and gets a future;
+ * one thread takes the requests that are waiting, lingers for more until the batch is full or
+ * the linger time is up, forces the data to disk once and completes the whole batch. Concurrent
+ * writers then share one fsync instead of paying for one each, and requests that arrive while a
+ * force is running simply make up the next batch.
+ */
+final class GroupCommit {
+    private final Runnable force;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final BlockingQueue<CompletableFuture<Void>> waiting = new LinkedBlockingQueue<>();
+    private final LongAdder batches = new LongAdder();
+    private final Thread thread;
+    private boolean running = true;
+
+    /**
+     * @param force writes everything written so far to disk; exceptions fail the batch
+     */
+    GroupCommit(Runnable force, int maxBatch, long lingerMicros) {
+        this.force = force;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+        thread = new Thread(this::run, "log-group-commit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** A future completed once everything written before this call is on disk. */
+    synchronized CompletableFuture<Void> request() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (!running) {
+            done.completeExceptionally(new IllegalStateException("Log is closed"));
+        } else {
+            waiting.add(done);
+        }
+        return done;
+    }
+
+    /** Forces performed so far, each covering one batch of requests. */
+    long batches() {
+        return batches.sum();
+    }
+
+    /** Stops taking requests, and returns once the ones already made are complete. */
+    void close() {
+        synchronized (this) {
+            running = false;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        List<CompletableFuture<Void>> batch = new ArrayList<>();
+        while (isRunning() || !waiting.isEmpty()) {
+            try {
+                CompletableFuture<Void> first = waiting.poll(10, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatch) {
+                    waiting.drainTo(batch, maxBatch - batch.size());
+                    long left = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatch || left <= 0) {
+                        break;
+                    }
+                    CompletableFuture<Void> next = waiting.poll(left, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Only close stops this thread; finish what was taken
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<CompletableFuture<Void>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            force.run();
+            batches.increment();
+            for (CompletableFuture<Void> done : batch) {
+                done.complete(null);
+            }
+        } catch (RuntimeException e) {
+            for (CompletableFuture<Void> done : batch) {
+                done.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.geekuz.store;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * One file of a {@link LogStore}, mapped into memory at its full size. Records are appended one
+ * after the other, each as
+ *
+ * <pre>
+ * int  CRC32C of everything after it
+ * int  value length, or -1 for a deletion
+ * long key
+ *      value bytes
+ * </pre>
+ *
+ * The unused rest of the file is zeros, so an all-zero header marks the end of the data. Writes
+ * go through a single writer; reads use absolute gets and can run concurrently with it, as long
+ * as the reader found the record's offset through something the writer published afterwards.
+ */
+final class LogSegment {
+    static final int HEADER_BYTES = 16;
+    static final int TOMBSTONE = -1;
+
+    final int id;
+    final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    // Writer only, or read after the writer is done with the segment
+    private int position;
+    // Bytes of records still pointed at by the index, plus deletions; guarded by the store's write lock
+    long liveBytes;
+
+    private LogSegment(int id, Path file, FileChannel channel, MappedByteBuffer buffer) {
+        this.id = id;
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static LogSegment create(int id, Path file, int size) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        return new LogSegment(id, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    static LogSegment open(int id, Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new LogSegment(id, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+    }
+
+    static int recordBytes(int valueLength) {
+        return HEADER_BYTES + Math.max(0, valueLength);
+    }
+
+    int position() {
+        return position;
+    }
+
+    void position(int position) {
+        this.position = position;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    boolean hasRoom(int bytes) {
+        return buffer.capacity() - position >= bytes;
+    }
+
+    /** Appends a record and returns its offset; the caller checks {@link #hasRoom} first. */
+    int append(long key, byte[] value) {
+        int offset = position;
+        int length = value != null ? value.length : TOMBSTONE;
+        buffer.putInt(offset + 4, length);
+        buffer.putLong(offset + 8, key);
+        if (value != null) {
+            buffer.put(offset + HEADER_BYTES, value);
+        }
+        // The checksum goes in last, so a torn write never looks complete
+        buffer.putInt(offset, checksum(offset, length));
+        position = offset + recordBytes(length);
+        return offset;
+    }
+
+    long key(int offset) {
+        return buffer.getLong(offset + 8);
+    }
+
+    int valueLength(int offset) {
+        return buffer.getInt(offset + 4);
+    }
+
+    byte[] value(int offset) {
+        int length = valueLength(offset);
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(offset + HEADER_BYTES, value);
+        return value;
+    }
+
+    /**
+     * Checks the record at {@code offset}.
+     *
+     * @return the offset after it, 0 if the data ends here, or -1 if the record is torn or corrupt
+     */
+    int verify(int offset) {
+        if (buffer.capacity() - offset < HEADER_BYTES) {
+            return 0;
+        }
+        int crc = buffer.getInt(offset);
+        int length = buffer.getInt(offset + 4);
+        if (crc == 0 && length == 0 && buffer.getLong(offset + 8) == 0) {
+            return 0;
+        }
+        if (length < TOMBSTONE || length > buffer.capacity() - offset - HEADER_BYTES) {
+            return -1;
+        }
+        if (crc != checksum(offset, length)) {
+            return -1;
+        }
+        return offset + recordBytes(length);
+    }
+
+    /**
+     * Makes {@code offset} the end of the data. Everything after it is zeroed, since pages of a
+     * torn write can reach the disk out of order; bytes that are zero already are left alone so
+     * their pages stay clean.
+     */
+    void truncate(int offset) {
+        int i = offset;
+        for (; i + 8 <= buffer.capacity(); i += 8) {
+            if (buffer.getLong(i) != 0) {
+                buffer.putLong(i, 0);
+            }
+        }
+        for (; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+        position = offset;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private int checksum(int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + 4, HEADER_BYTES - 4 + Math.max(0, length)));
+        return (int) crc.getValue();
+    }
+
+    static void delete(LogSegment segment) throws IOException {
+        segment.close();
+        Files.deleteIfExists(segment.file);
+    }
+}
@@ -0,0 +1,398 @@
+package com.geekuz.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Log-structured storage from {@code long} keys to byte values. Every write is appended to the
+ * active {@link LogSegment}, a memory-mapped file, so writes are sequential; a full segment is
+ * sealed and a new one started. An in-memory index maps each key to the segment and offset of its
+ * latest record, so a read is one hash lookup and one copy out of the mapping.
+ *
+ * <p>On startup the segments are replayed in order to rebuild the index. Every record carries a
+ * CRC32C; replay stops at the first record that fails it, and if that is in the last segment,
+ * where a crash can leave a torn write, the data after it is dropped.
+ *
+ * <p>Overwritten and deleted records stay in their segments until a compactor thread rewrites
+ * the live records of sealed segments whose live share fell below the configured threshold and
+ * deletes the old file. Deletions are kept as tombstones until their segment is the oldest, so
+ * they keep shadowing older records through a restart. Before a segment is deleted, the highest
+ * key written so far is saved to a small file next to the segments, so {@link #maxKey()} does
+ * not go back when the records that held it are gone.
+ *
+ * <p>Writes reach the page cache when they return; {@link #sync()} waits until they are on disk.
+ * Syncs from concurrent writers are group-committed, so they share one force rather than paying
+ * for one each.
+ *
+ * <p>Reads never lock. Writes and compaction share one lock, which is also what keeps the index
+ * and the per-segment live counts consistent with the files.
+ */
+public class LogStore implements Closeable {
+    private static final String SUFFIX = ".seg";
+    // Highest key written, kept because compaction can drop every record that held it
+    private static final String MAX_KEY_FILE = "max-key";
+
+    private final LogStoreOptions options;
+    private final ConcurrentLongMap<Long> index;
+    // Segments by id, oldest first; readers look them up without the lock
+    private final ConcurrentSkipListMap<Integer, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final Object writeLock = new Object();
+    private final Object compactionLock = new Object();
+    private final Thread compactor;
+    private final GroupCommit groupCommit;
+    private LogSegment active;
+    private long maxKey;
+    private long compacted;
+    private volatile boolean running = true;
+
+    public LogStore(LogStoreOptions options) throws IOException {
+        this.options = options;
+        this.index = new ConcurrentLongMap<>(64, 1024);
+        Files.createDirectories(options.getDirectory());
+        recover();
+        groupCommit = new GroupCommit(this::forceActive, options.getGroupCommitMaxBatch(),
+                options.getGroupCommitLingerMicros());
+        if (options.getCompactionIntervalMillis() > 0) {
+            compactor = new Thread(this::compactLoop, "log-compactor");
+            compactor.setDaemon(true);
+            compactor.start();
+        } else {
+            compactor = null;
+        }
+    }
+
+    /** The value stored under {@code key}, or null. */
+    public byte[] get(long key) {
+        while (true) {
+            Long location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            LogSegment segment = segments.get(segmentId(location));
+            if (segment != null) {
+                return segment.value(offset(location));
+            }
+            // Compacted away since the index was read; it points at the new copy by now
+        }
+    }
+
+    public void put(long key, byte[] value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        synchronized (writeLock) {
+            Long previous = index.put(key, append(key, value));
+            if (previous != null) {
+                release(previous);
+            }
+        }
+    }
+
+    /** @return whether there was a value to delete */
+    public boolean delete(long key) {
+        synchronized (writeLock) {
+            Long previous = index.get(key);
+            if (previous == null) {
+                return false;
+            }
+            append(key, null);
+            index.remove(key);
+            release(previous);
+            return true;
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /** The highest key written since the store was created, including deleted ones. */
+    public long maxKey() {
+        synchronized (writeLock) {
+            return maxKey;
+        }
+    }
+
+    /** Calls {@code action} with every key and value, in no particular order. */
+    public void forEach(ConcurrentLongMap.Entries<byte[]> action) {
+        index.forEach((key, location) -> {
+            byte[] value = get(key);
+            if (value != null) {
+                action.accept(key, value);
+            }
+        });
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /** Segments that have been compacted and deleted since the store was opened. */
+    public long compactedSegments() {
+        synchronized (writeLock) {
+            return compacted;
+        }
+    }
+
+    /** Forces everything written so far to disk. */
+    public void flush() {
+        synchronized (writeLock) {
+            active.force();
+        }
+    }
+
+    /**
+     * A future completed once everything written before the call is on disk, or completed
+     * exceptionally if forcing it failed. Callers that sync at about the same time are completed
+     * by the same force.
+     */
+    public CompletableFuture<Void> sync() {
+        return groupCommit.request();
+    }
+
+    /** Forces done for {@link #sync()} calls; each one covered a batch of them. */
+    public long syncBatches() {
+        return groupCommit.batches();
+    }
+
+    /** Compacts every sealed segment that is below the threshold; normally done by the compactor thread. */
+    public void compact() {
+        synchronized (compactionLock) {
+            for (LogSegment segment : segments.values()) {
+                if (shouldCompact(segment)) {
+                    try {
+                        compact(segment);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        groupCommit.close();
+        running = false;
+        if (compactor != null) {
+            LockSupport.unpark(compactor);
+            try {
+                compactor.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (writeLock) {
+            for (LogSegment segment : segments.values()) {
+                segment.force();
+                segment.close();
+            }
+        }
+    }
+
+    /** Appends under the write lock and returns the record's location. */
+    private long append(long key, byte[] value) {
+        int bytes = LogSegment.recordBytes(value != null ? value.length : LogSegment.TOMBSTONE);
+        if (bytes > options.getSegmentBytes()) {
+            throw new IllegalArgumentException("Record of " + bytes + " bytes does not fit a segment");
+        }
+        if (!active.hasRoom(bytes)) {
+            roll();
+        }
+        int offset = active.append(key, value);
+        active.liveBytes += bytes;
+        maxKey = Math.max(maxKey, key);
+        if (options.isSyncWrites()) {
+            active.force();
+        }
+        return location(active.id, offset);
+    }
+
+    /** The record at {@code location} is no longer the latest for its key. */
+    private void release(long location) {
+        LogSegment segment = segments.get(segmentId(location));
+        if (segment != null) {
+            segment.liveBytes -= LogSegment.recordBytes(segment.valueLength(offset(location)));
+        }
+    }
+
+    /**
+     * Forces the active segment outside the write lock, so writers can go on appending while the
+     * disk catches up. Sealed segments were forced when they were rolled.
+     */
+    private void forceActive() {
+        LogSegment segment;
+        synchronized (writeLock) {
+            segment = active;
+        }
+        segment.force();
+    }
+
+    private void roll() {
+        active.force();
+        try {
+            active = newSegment(active.id + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private LogSegment newSegment(int id) throws IOException {
+        LogSegment segment = LogSegment.create(id, options.getDirectory().resolve(String.format("%010d%s", id, SUFFIX)),
+                options.getSegmentBytes());
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(options.getDirectory())) {
+            list.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).forEach(files::add);
+        }
+        files.sort(null);
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            int id = Integer.parseInt(name.substring(0, name.length() - SUFFIX.length()));
+            segments.put(id, LogSegment.open(id, file));
+        }
+        for (LogSegment segment : segments.values()) {
+            replay(segment, segment == segments.lastEntry().getValue());
+        }
+        active = segments.isEmpty() ? newSegment(1) : segments.lastEntry().getValue();
+        Path maxKeyFile = options.getDirectory().resolve(MAX_KEY_FILE);
+        if (Files.exists(maxKeyFile)) {
+            maxKey = Math.max(maxKey, ByteBuffer.wrap(Files.readAllBytes(maxKeyFile)).getLong());
+        }
+    }
+
+    /** Replaces the max key file with one holding {@code max}, durably, before returning. */
+    private void saveMaxKey(long max) throws IOException {
+        Path file = options.getDirectory().resolve(MAX_KEY_FILE);
+        Path temp = options.getDirectory().resolve(MAX_KEY_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, max));
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void replay(LogSegment segment, boolean last) {
+        int offset = 0;
+        while (true) {
+            int next = segment.verify(offset);
+            if (next == 0) {
+                break;
+            }
+            if (next < 0) {
+                if (last) {
+                    System.err.println("Dropping torn write at the end of " + segment.file + ", offset " + offset);
+                    segment.truncate(offset);
+                } else {
+                    System.err.println("Corrupt record in " + segment.file + " at offset " + offset
+                            + ", skipping the rest of the segment");
+                }
+                break;
+            }
+            long key = segment.key(offset);
+            int length = segment.valueLength(offset);
+            maxKey = Math.max(maxKey, key);
+            Long previous;
+            if (length == LogSegment.TOMBSTONE) {
+                previous = index.remove(key);
+                segment.liveBytes += LogSegment.HEADER_BYTES;
+            } else {
+                previous = index.put(key, location(segment.id, offset));
+                segment.liveBytes += LogSegment.recordBytes(length);
+            }
+            if (previous != null) {
+                release(previous);
+            }
+            offset = next;
+        }
+        segment.position(offset);
+    }
+
+    private void compactLoop() {
+        long interval = options.getCompactionIntervalMillis() * 1_000_000;
+        while (running) {
+            LockSupport.parkNanos(interval);
+            if (!running) {
+                break;
+            }
+            try {
+                compact();
+            } catch (RuntimeException e) {
+                System.err.println("Log compaction failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean shouldCompact(LogSegment segment) {
+        synchronized (writeLock) {
+            return segment != active && segment.liveBytes < segment.position() * options.getCompactionThreshold();
+        }
+    }
+
+    /**
+     * Copies the live records of a sealed segment to the active one, then deletes it. Each record
+     * is moved under the write lock, and only if the index still points at it.
+     */
+    private void compact(LogSegment segment) throws IOException {
+        boolean oldest = segments.firstKey() == segment.id;
+        int end = segment.position();
+        for (int offset = 0; offset < end; offset = offset + LogSegment.recordBytes(segment.valueLength(offset))) {
+            long key = segment.key(offset);
+            synchronized (writeLock) {
+                if (segment.valueLength(offset) == LogSegment.TOMBSTONE) {
+                    // Needed only while an older segment may still hold a value for the key
+                    if (!oldest && index.get(key) == null) {
+                        append(key, null);
+                    }
+                } else {
+                    Long location = index.get(key);
+                    if (location != null && location == location(segment.id, offset)) {
+                        index.put(key, append(key, segment.value(offset)));
+                    }
+                }
+            }
+        }
+        long max;
+        synchronized (writeLock) {
+            active.force();
+            max = maxKey;
+        }
+        saveMaxKey(max);
+        synchronized (writeLock) {
+            segments.remove(segment.id);
+            compacted++;
+        }
+        // Readers that found the segment before it was removed keep using the mapping
+        LogSegment.delete(segment);
+    }
+
+    private static long location(int segmentId, int offset) {
+        return (long) segmentId << 32 | offset & 0xFFFFFFFFL;
+    }
+
+    private static int segmentId(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+}
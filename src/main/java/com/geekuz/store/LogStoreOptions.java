@@ -0,0 +1,52 @@
+package com.geekuz.store;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Settings for {@link LogStore}.
+ */
+public class LogStoreOptions {
+    private Path directory = Paths.get("data");
+    private int segmentBytes = 64 * 1024 * 1024;
+    private double compactionThreshold = 0.5;
+    private long compactionIntervalMillis = 5_000;
+    private boolean syncWrites;
+    private int groupCommitMaxBatch = 1024;
+    private long groupCommitLingerMicros;
+
+    // Getters and setters
+    public Path getDirectory() { return directory; }
+    public void setDirectory(Path directory) { this.directory = directory; }
+
+    /** Size each segment file is mapped at; also the largest record that can be stored. */
+    public int getSegmentBytes() { return segmentBytes; }
+    public void setSegmentBytes(int segmentBytes) { this.segmentBytes = segmentBytes; }
+
+    /** Full segments whose share of live records drops below this are compacted. */
+    public double getCompactionThreshold() { return compactionThreshold; }
+    public void setCompactionThreshold(double compactionThreshold) { this.compactionThreshold = compactionThreshold; }
+
+    /** How often the compactor looks for segments to compact; 0 leaves it to {@link LogStore#compact()}. */
+    public long getCompactionIntervalMillis() { return compactionIntervalMillis; }
+    public void setCompactionIntervalMillis(long compactionIntervalMillis) { this.compactionIntervalMillis = compactionIntervalMillis; }
+
+    /**
+     * Whether every write is forced to disk before it returns. Otherwise the OS writes mapped
+     * pages back on its own schedule, and {@link LogStore#sync()}, {@link LogStore#flush()} or
+     * closing forces them.
+     */
+    public boolean isSyncWrites() { return syncWrites; }
+    public void setSyncWrites(boolean syncWrites) { this.syncWrites = syncWrites; }
+
+    /** Most {@link LogStore#sync()} calls completed by one force. */
+    public int getGroupCommitMaxBatch() { return groupCommitMaxBatch; }
+    public void setGroupCommitMaxBatch(int groupCommitMaxBatch) { this.groupCommitMaxBatch = groupCommitMaxBatch; }
+
+    /**
+     * How long a sync waits for others to join its force. 0 batches only the syncs that queued up
+     * while the previous force ran, which adds no latency when writers are few.
+     */
+    public long getGroupCommitLingerMicros() { return groupCommitLingerMicros; }
+    public void setGroupCommitLingerMicros(long groupCommitLingerMicros) { this.groupCommitLingerMicros = groupCommitLingerMicros; }
+}
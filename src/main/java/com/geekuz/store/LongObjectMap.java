@@ -0,0 +1,174 @@
+package com.geekuz.store;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to objects: one {@code long[]} of
+ * keys and one {@code Object[]} of values probed linearly, with no boxing and no entry objects.
+ * Key 0 marks an empty slot, so its value is kept aside. Removal shifts the following entries
+ * back instead of leaving tombstones, so lookups never slow down after deletes.
+ *
+ * Not thread-safe; {@link ConcurrentLongMap} guards it. The arrays are replaced as a whole
+ * {@link Table} on resize so an optimistic reader always sees a matching pair.
+ */
+final class LongObjectMap<V> {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    static final class Table {
+        final long[] keys;
+        final Object[] values;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+        }
+    }
+
+    private Table table;
+    private Object zeroValue;
+    private int size;
+
+    LongObjectMap(int expectedSize) {
+        table = new Table(capacityFor(expectedSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        if (key == 0) {
+            return (V) zeroValue;
+        }
+        Table t = table;
+        long[] keys = t.keys;
+        int mask = keys.length - 1;
+        // Bounded, so a reader racing a writer cannot spin forever
+        for (int i = index(key, mask), probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+            long k = keys[i];
+            if (k == key) {
+                return (V) t.values[i];
+            }
+            if (k == 0) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /** @return the previous value, or null */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (key == 0) {
+            Object previous = zeroValue;
+            if (previous == null) {
+                size++;
+            }
+            zeroValue = value;
+            return (V) previous;
+        }
+        long[] keys = table.keys;
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                Object previous = table.values[i];
+                table.values[i] = value;
+                return (V) previous;
+            }
+            i = (i + 1) & mask;
+        }
+        // Value before key, so a reader that finds the key also finds its value
+        table.values[i] = value;
+        keys[i] = key;
+        if (++size > keys.length * LOAD_FACTOR) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+
+    /** @return the removed value, or null */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        if (key == 0) {
+            Object previous = zeroValue;
+            if (previous != null) {
+                size--;
+            }
+            zeroValue = null;
+            return (V) previous;
+        }
+        long[] keys = table.keys;
+        Object[] values = table.values;
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != key) {
+            if (keys[i] == 0) {
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+        Object previous = values[i];
+        // Shift later entries of the probe run back into the hole
+        int hole = i;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = index(keys[j], mask);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = 0;
+        values[hole] = null;
+        size--;
+        return (V) previous;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * A copy of the entries to iterate over without holding a lock; the value for key 0 is
+     * appended as an extra slot.
+     */
+    Table copy() {
+        Table t = table;
+        Table copy = new Table(t.keys.length + 1);
+        System.arraycopy(t.keys, 0, copy.keys, 0, t.keys.length);
+        System.arraycopy(t.values, 0, copy.values, 0, t.values.length);
+        copy.values[t.keys.length] = zeroValue;
+        return copy;
+    }
+
+    private void resize(int capacity) {
+        Table old = table;
+        Table resized = new Table(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < old.keys.length; j++) {
+            long key = old.keys[j];
+            if (key != 0) {
+                int i = index(key, mask);
+                while (resized.keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                resized.keys[i] = key;
+                resized.values[i] = old.values[j];
+            }
+        }
+        table = resized;
+    }
+
+    static int capacityFor(int expectedSize) {
+        int needed = (int) Math.min(1L << 30, (long) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR));
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    /** Mixes all bits of the key, so sequential ids do not form long probe runs. */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static int index(long key, int mask) {
+        return (int) mix(key) & mask;
+    }
+}
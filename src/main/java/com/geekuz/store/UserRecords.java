@@ -0,0 +1,141 @@
+package com.geekuz.store;
+
+import com.geekuz.entity.Address;
+import com.geekuz.entity.RoleSet;
+import com.geekuz.entity.Roles;
+import com.geekuz.entity.User;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary form of a {@link User} as stored in a {@link LogStore}: a version byte, then the fields
+ * in declaration order. Strings are a length and UTF-8 bytes, with length -1 for null; the role
+ * set is a count, -1 for null, and the role names. Names rather than registry ids, because ids
+ * follow the order roles are registered in, which may differ after a restart.
+ */
+final class UserRecords {
+    private static final byte VERSION = 2;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private UserRecords() {
+    }
+
+    static byte[] encode(User user) {
+        ByteBuffer out = ByteBuffer.allocate(256);
+        out.put(VERSION);
+        out.putLong(user.getId());
+        out = putString(out, user.getUsername());
+        out = putString(out, user.getEmail());
+        out = putString(out, user.getPassword());
+        out = ensure(out, 12);
+        out.putLong(user.getBirthDate() != null ? user.getBirthDate().toEpochDay() : NO_DATE);
+        RoleSet roles = user.getRoleSet();
+        if (roles == null) {
+            out.putInt(-1);
+        } else {
+            List<String> names = roles.names();
+            out.putInt(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                out = putString(out, names.get(i));
+            }
+        }
+        Address address = user.getAddress();
+        out = ensure(out, 1);
+        out.put((byte) (address != null ? 1 : 0));
+        if (address != null) {
+            out = putString(out, address.getStreet());
+            out = putString(out, address.getCity());
+            out = putString(out, address.getZipCode());
+            out = putString(out, address.getCountry());
+        }
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    /** @throws IllegalArgumentException if the bytes are not a user record this version can read */
+    static User decode(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            if (in.get() != VERSION) {
+                throw new IllegalArgumentException("Unknown user record version " + bytes[0]);
+            }
+            User user = new User();
+            user.setId(in.getLong());
+            user.setUsername(getString(in));
+            user.setEmail(getString(in));
+            user.setPassword(getString(in));
+            long birthDate = in.getLong();
+            user.setBirthDate(birthDate != NO_DATE ? LocalDate.ofEpochDay(birthDate) : null);
+            user.setRoleSet(getRoles(in, user));
+            if (in.get() != 0) {
+                Address address = new Address();
+                address.setStreet(getString(in));
+                address.setCity(getString(in));
+                address.setZipCode(getString(in));
+                address.setCountry(getString(in));
+                user.setAddress(address);
+            }
+            return user;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated user record");
+        }
+    }
+
+    /**
+     * Roles that are no longer registered are dropped with a warning rather than failing the
+     * whole load; losing a role never grants anything.
+     */
+    private static RoleSet getRoles(ByteBuffer in, User user) {
+        int count = in.getInt();
+        if (count < 0) {
+            return null;
+        }
+        if (count > in.remaining() / 4) {
+            throw new BufferUnderflowException();
+        }
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = getString(in);
+            if (Roles.get(name) != null) {
+                names.add(name);
+            } else {
+                System.err.println("Dropping unregistered role " + name + " from user " + user.getId());
+            }
+        }
+        return RoleSet.ofNames(names);
+    }
+
+    private static ByteBuffer putString(ByteBuffer out, String value) {
+        if (value == null) {
+            return ensure(out, 4).putInt(-1);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return ensure(out, 4 + bytes.length).putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static ByteBuffer ensure(ByteBuffer out, int bytes) {
+        if (out.remaining() >= bytes) {
+            return out;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+        return grown.put(out.flip());
+    }
+}
@@ -0,0 +1,389 @@
+package com.geekuz.store;
+
+import com.geekuz.entity.Address;
+import com.geekuz.entity.User;
+import com.geekuz.entity.UserChanges;
+import com.geekuz.entity.UserField;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory {@link User} storage. Users are kept by id in a {@link ConcurrentLongMap}, with
+ * secondary indexes from username and email (unique, email case-insensitive) to id and from
+ * {@code Address.city} to the users living there. All lookups are hash lookups and none of them
+ * takes a lock that a writer could be waiting on.
+ *
+ * Writes to the same id are serialized by a striped lock; the unique indexes are claimed with
+ * {@code putIfAbsent}, so two users can never end up with the same username or email. A reader
+ * may briefly see a user under both its old and new username while an update is in progress.
+ *
+ * Stored users are shared with readers and must not be modified afterwards; to change one,
+ * {@link #replace} it with an updated copy.
+ *
+ * Given a {@link LogStore}, the store starts out with the users saved in it and writes every
+ * change through to it before the change becomes visible in memory. A durable store also waits
+ * for each change to be on disk before the write returns; changes from concurrent writers are
+ * forced together, see {@link LogStore#sync()}. Readers may see a change while its writer is
+ * still waiting.
+ */
+public class UserStore {
+    private static final int WRITE_STRIPES = 64;
+
+    private final ConcurrentLongMap<User> byId;
+    private final ConcurrentHashMap<String, Long> byUsername;
+    private final ConcurrentHashMap<String, Long> byEmail;
+    private final ConcurrentHashMap<String, ConcurrentLongMap<User>> byCity = new ConcurrentHashMap<>();
+    private final Object[] writeLocks = new Object[WRITE_STRIPES];
+    private final AtomicLong lastId = new AtomicLong();
+    // Every id up to this one is either stored or failed to insert; cursors stop here, so they
+    // never pass an id whose insert is still in progress
+    private final AtomicLong insertedId = new AtomicLong();
+    // Ids above insertedId whose insert finished out of order
+    private final Set<Long> insertedEarly = ConcurrentHashMap.newKeySet();
+    private final LogStore log;
+    private final boolean durable;
+
+    public UserStore() {
+        this(1024);
+    }
+
+    public UserStore(int expectedSize) {
+        this(expectedSize, null, false);
+    }
+
+    /** Loads the users saved in {@code log} and keeps it up to date from then on. */
+    public UserStore(LogStore log) {
+        this(log, false);
+    }
+
+    /**
+     * Like {@link #UserStore(LogStore)}; if {@code durable}, writes return only once they are on
+     * disk, blocking the calling thread until then. Callers on an event loop should run writes
+     * on a worker, see {@link #isDurable()}.
+     */
+    public UserStore(LogStore log, boolean durable) {
+        this(Math.max(1024, log.size()), log, durable);
+        log.forEach((id, bytes) -> {
+            User user = UserRecords.decode(bytes);
+            claim(id, null, user);
+            byId.put(id, user);
+            addToCity(id, user);
+        });
+        // Ids of deleted users are not handed out again
+        lastId.set(log.maxKey());
+        insertedId.set(log.maxKey());
+    }
+
+    private UserStore(int expectedSize, LogStore log, boolean durable) {
+        this.log = log;
+        this.durable = durable;
+        byId = new ConcurrentLongMap<>(64, expectedSize);
+        byUsername = new ConcurrentHashMap<>(expectedSize);
+        byEmail = new ConcurrentHashMap<>(expectedSize);
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new Object();
+        }
+    }
+
+    /** Whether writes wait for the disk, so callers must be allowed to block. */
+    public boolean isDurable() {
+        return durable;
+    }
+
+    public User get(long id) {
+        return byId.get(id);
+    }
+
+    public User findByUsername(String username) {
+        Long id = byUsername.get(username);
+        return id != null ? byId.get(id) : null;
+    }
+
+    public User findByEmail(String email) {
+        Long id = byEmail.get(email.toLowerCase(Locale.ROOT));
+        return id != null ? byId.get(id) : null;
+    }
+
+    /** Users whose address is in {@code city}, in no particular order. */
+    public List<User> findByCity(String city) {
+        ConcurrentLongMap<User> residents = byCity.get(city);
+        List<User> users = new ArrayList<>();
+        if (residents != null) {
+            residents.forEach((id, user) -> users.add(user));
+        }
+        return users;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Walks the users with ids above {@code afterId} in id order, looking each one up as it goes,
+     * so a listing of any size holds no more than one user at a time. Resuming after the id of
+     * the last user seen is a keyset pagination token that stays valid across inserts and
+     * deletes: the walk ends before any id whose insert has not finished yet. It costs one
+     * lookup per id handed out, deleted ones included.
+     */
+    public Cursor cursor(long afterId) {
+        return new Cursor(afterId);
+    }
+
+    /** The highest id handed out so far; ids are assigned in increasing order starting at 1. */
+    public long lastId() {
+        return lastId.get();
+    }
+
+    /**
+     * Stores a new user under the next id, which is set on {@code user}.
+     *
+     * @throws DuplicateUserException if the username or email is taken
+     */
+    public User insert(User user) {
+        long id = lastId.incrementAndGet();
+        user.setId(id);
+        try {
+            synchronized (lockFor(id)) {
+                claim(id, null, user);
+                save(id, null, user);
+                byId.put(id, user);
+                addToCity(id, user);
+            }
+        } finally {
+            inserted(id);
+        }
+        awaitDurable();
+        return user;
+    }
+
+    /**
+     * Replaces the user with the same id.
+     *
+     * @return the previous user, or null if there was none and nothing was stored
+     * @throws DuplicateUserException if the new username or email belongs to another user
+     */
+    public User replace(User user) {
+        long id = user.getId();
+        User previous;
+        synchronized (lockFor(id)) {
+            previous = byId.get(id);
+            if (previous == null) {
+                return null;
+            }
+            claim(id, previous, user);
+            save(id, previous, user);
+            byId.put(id, user);
+            addToCity(id, user);
+            if (!Objects.equals(city(previous), city(user))) {
+                removeFromCity(id, previous);
+            }
+            release(id, previous, user);
+        }
+        awaitDurable();
+        return previous;
+    }
+
+    /**
+     * Replaces {@code changes.before()} with {@code changes.after()}, provided it is still the
+     * stored user, touching only the indexes of the fields that changed. Changes that are empty
+     * are not written at all.
+     *
+     * @return false if the user was replaced or deleted after {@code changes.before()} was read,
+     *         in which case nothing was stored and the update should be redone
+     * @throws DuplicateUserException if the new username or email belongs to another user
+     */
+    public boolean replace(UserChanges changes) {
+        User previous = changes.before();
+        User user = changes.after();
+        long id = previous.getId();
+        synchronized (lockFor(id)) {
+            if (byId.get(id) != previous) {
+                return false;
+            }
+            if (changes.isEmpty()) {
+                return true;
+            }
+            boolean keys = changes.contains(UserField.USERNAME) || changes.contains(UserField.EMAIL);
+            if (keys) {
+                claim(id, previous, user);
+            }
+            save(id, previous, user);
+            byId.put(id, user);
+            // The city index holds the user itself, so it needs the new instance either way
+            addToCity(id, user);
+            if (changes.contains(UserField.ADDRESS) && !Objects.equals(city(previous), city(user))) {
+                removeFromCity(id, previous);
+            }
+            if (keys) {
+                release(id, previous, user);
+            }
+        }
+        awaitDurable();
+        return true;
+    }
+
+    /** @return the removed user, or null if there was none */
+    public User delete(long id) {
+        User previous;
+        synchronized (lockFor(id)) {
+            if (log != null && byId.get(id) != null) {
+                log.delete(id);
+            }
+            previous = byId.remove(id);
+            if (previous == null) {
+                return null;
+            }
+            release(id, previous, null);
+            removeFromCity(id, previous);
+        }
+        awaitDurable();
+        return previous;
+    }
+
+    /**
+     * Writes {@code user} through to the log, if there is one. If that fails, the unique keys
+     * claimed for it are given back and nothing in memory has changed yet.
+     */
+    private void save(long id, User previous, User user) {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.put(id, UserRecords.encode(user));
+        } catch (RuntimeException e) {
+            release(id, user, previous);
+            throw e;
+        }
+    }
+
+    /**
+     * Marks the insert of {@code id} as finished and advances {@link #insertedId} past every id
+     * that has finished in order. An insert that finishes before a lower one parks its id in
+     * {@link #insertedEarly}, and the insert it was waiting for picks it up. Each side publishes
+     * before it checks the other, so one of them always sees the other.
+     */
+    private void inserted(long id) {
+        if (!insertedId.compareAndSet(id - 1, id)) {
+            insertedEarly.add(id);
+        }
+        while (true) {
+            long next = insertedId.get() + 1;
+            // Only one thread can remove an id, so only that thread moves the mark past it
+            if (!insertedEarly.remove(next)) {
+                return;
+            }
+            insertedId.set(next);
+        }
+    }
+
+    /**
+     * In a durable store, waits until everything written so far is on disk. Called outside the
+     * write lock, so writers to other ids are not held up and can share the same force.
+     */
+    private void awaitDurable() {
+        if (!durable) {
+            return;
+        }
+        try {
+            log.sync().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /** Takes the unique keys {@code user} needs and {@code previous} does not already hold. */
+    private void claim(long id, User previous, User user) {
+        String username = user.getUsername();
+        boolean claimedUsername = false;
+        if (username != null && (previous == null || !username.equals(previous.getUsername()))) {
+            Long owner = byUsername.putIfAbsent(username, id);
+            if (owner != null && owner != id) {
+                throw new DuplicateUserException("username", username);
+            }
+            claimedUsername = owner == null;
+        }
+        String email = emailKey(user);
+        if (email != null && (previous == null || !email.equals(emailKey(previous)))) {
+            Long owner = byEmail.putIfAbsent(email, id);
+            if (owner != null && owner != id) {
+                if (claimedUsername) {
+                    byUsername.remove(username, id);
+                }
+                throw new DuplicateUserException("email", user.getEmail());
+            }
+        }
+    }
+
+    /** Gives up the unique keys of {@code previous} that {@code user} no longer uses. */
+    private void release(long id, User previous, User user) {
+        String username = previous.getUsername();
+        if (username != null && (user == null || !username.equals(user.getUsername()))) {
+            byUsername.remove(username, id);
+        }
+        String email = emailKey(previous);
+        if (email != null && (user == null || !email.equals(emailKey(user)))) {
+            byEmail.remove(email, id);
+        }
+    }
+
+    private void addToCity(long id, User user) {
+        String city = city(user);
+        if (city != null) {
+            byCity.computeIfAbsent(city, c -> new ConcurrentLongMap<>(4, 16)).put(id, user);
+        }
+    }
+
+    private void removeFromCity(long id, User user) {
+        String city = city(user);
+        if (city != null) {
+            ConcurrentLongMap<User> residents = byCity.get(city);
+            if (residents != null) {
+                residents.remove(id);
+            }
+        }
+    }
+
+    private Object lockFor(long id) {
+        return writeLocks[(int) (id & (WRITE_STRIPES - 1))];
+    }
+
+    private static String emailKey(User user) {
+        return user.getEmail() != null ? user.getEmail().toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static String city(User user) {
+        Address address = user.getAddress();
+        return address != null ? address.getCity() : null;
+    }
+
+    /**
+     * Position in a walk over the ids; users inserted while it is open are seen if their id has
+     * not been passed yet.
+     */
+    public class Cursor {
+        private long position;
+
+        Cursor(long afterId) {
+            position = Math.max(0, afterId);
+        }
+
+        /** The next user in id order, or null once the highest id whose insert has finished is passed. */
+        public User next() {
+            long last = insertedId.get();
+            while (position < last) {
+                User user = byId.get(++position);
+                if (user != null) {
+                    return user;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.geekuz.entity;
+
+import com.geekuz.mapper.UserMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoleSetTest {
+
+    @Test
+    @DisplayName("Users with the same roles share one set, in id order and without duplicates")
+    void testShared() {
+        Role admin = new Role(7L, "ADMIN");
+        User first = new User();
+        first.setRoles(List.of(new Role(null, "USER"), admin));
+        User second = new User();
+        second.setRoleSet(RoleSet.ofNames(List.of("ADMIN", "USER", "ADMIN")));
+
+        assertSame(first.getRoleSet(), second.getRoleSet());
+        assertEquals(List.of("ADMIN", "USER"), first.getRoleSet().names());
+        assertSame(Roles.ADMIN, first.getRoles().get(0));
+        assertTrue(first.getRoleSet().contains(admin));
+        assertEquals(0b110, first.getRoleSet().bits());
+        assertSame(RoleSet.EMPTY, RoleSet.ofNames(List.of()));
+        assertNull(RoleSet.of((List<Role>) null));
+
+        UserMapper mapper = Mappers.getMapper(UserMapper.class);
+        assertSame(mapper.userToUserDTO(first).getRoleNames(), mapper.userToUserDTO(second).getRoleNames());
+        assertSame(first.getRoleSet(), mapper.copyUser(first).getRoleSet());
+    }
+
+    @Test
+    @DisplayName("Only registered roles are accepted, and registered roles cannot be changed")
+    void testRegistry() {
+        assertThrows(IllegalArgumentException.class, () -> RoleSet.ofNames(List.of("USER", "NOBODY")));
+        assertThrows(IllegalArgumentException.class, () -> RoleSet.of(1L << 60));
+        assertThrows(UnsupportedOperationException.class, () -> Roles.USER.setName("ROOT"));
+        assertThrows(UnsupportedOperationException.class, () -> RoleSet.EMPTY.names().add("USER"));
+
+        Role auditor = Roles.register("TEST_AUDITOR");
+        assertSame(auditor, Roles.register("TEST_AUDITOR"));
+        assertSame(auditor, Roles.get(auditor.getId().intValue()));
+        assertTrue(RoleSet.ofNames(List.of("TEST_AUDITOR")).contains(auditor));
+    }
+}
@@ -0,0 +1,86 @@
+package com.geekuz.http;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpRequestParserTest {
+
+    private final HttpRequest request = new HttpRequest();
+
+    private int parse(String head) {
+        byte[] buf = head.getBytes(StandardCharsets.ISO_8859_1);
+        return HttpRequestParser.parse(buf, 0, buf.length, request);
+    }
+
+    @Test
+    @DisplayName("Parses method, path, query and interesting headers")
+    void testParseRequest() {
+        String head = "POST /api/users?city=Tashkent HTTP/1.1\r\n" +
+                      "Host: localhost\r\n" +
+                      "content-length: 42\r\n" +
+                      "Connection: close\r\n" +
+                      "Accept-Encoding: br, gzip;q=0.8, deflate;q=0\r\n" +
+                      "\r\n";
+
+        assertEquals(head.length(), parse(head));
+        assertEquals(HttpMethod.POST, request.method());
+        assertEquals("/api/users", request.path());
+        assertEquals("city=Tashkent", request.query());
+        assertEquals(42, request.contentLength());
+        assertFalse(request.isKeepAlive());
+        assertEquals(HttpRequest.ENCODING_GZIP, request.acceptEncoding());
+    }
+
+    @Test
+    @DisplayName("Keep-alive defaults depend on the protocol version")
+    void testKeepAliveDefaults() {
+        parse("GET / HTTP/1.1\r\n\r\n");
+        assertTrue(request.isKeepAlive());
+
+        parse("GET / HTTP/1.0\r\n\r\n");
+        assertFalse(request.isKeepAlive());
+
+        parse("GET / HTTP/1.0\r\nConnection: Keep-Alive\r\n\r\n");
+        assertTrue(request.isKeepAlive());
+    }
+
+    @Test
+    @DisplayName("Truncated heads need more bytes")
+    void testIncomplete() {
+        assertEquals(HttpRequestParser.INCOMPLETE, parse("GET /api/hel"));
+        assertEquals(HttpRequestParser.INCOMPLETE, parse("GET /api/hello HTTP/1.1\r\nHost: x\r\n"));
+    }
+
+    @Test
+    @DisplayName("Malformed request lines are rejected instead of throwing")
+    void testMalformed() {
+        assertEquals(HttpRequestParser.MALFORMED, parse("GARBAGE\r\n\r\n"));
+        assertEquals(HttpRequestParser.MALFORMED, parse("GET\r\n\r\n"));
+        assertEquals(HttpRequestParser.MALFORMED, parse("GET relative HTTP/1.1\r\n\r\n"));
+        assertEquals(HttpRequestParser.MALFORMED, parse("GET / HTTP/2.0\r\n\r\n"));
+        assertEquals(HttpRequestParser.MALFORMED, parse("GET / HTTP/1.1\r\nBad Header: x\r\n\r\n"));
+        assertEquals(HttpRequestParser.MALFORMED, parse("GET / HTTP/1.1\r\nContent-Length: -1\r\n\r\n"));
+        assertEquals(HttpRequestParser.MALFORMED,
+                parse("GET / HTTP/1.1\r\nContent-Length: 1\r\nContent-Length: 2\r\n\r\n"));
+    }
+
+    @Test
+    @DisplayName("Bodies must be framed by exactly one of Content-Length and chunked Transfer-Encoding")
+    void testFraming() {
+        String chunked = "POST / HTTP/1.1\r\nTransfer-Encoding: gzip, chunked\r\n\r\n";
+        assertEquals(chunked.length(), parse(chunked));
+        assertTrue(request.isChunked());
+
+        assertEquals(HttpRequestParser.MALFORMED, parse("POST / HTTP/1.1\r\nTransfer-Encoding: gzip\r\n\r\n"));
+        assertEquals(HttpRequestParser.MALFORMED,
+                parse("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\nTransfer-Encoding: gzip\r\n\r\n"));
+        assertEquals(HttpRequestParser.MALFORMED,
+                parse("POST / HTTP/1.1\r\nContent-Length: 5\r\nTransfer-Encoding: chunked\r\n\r\n"));
+        assertEquals(HttpRequestParser.MALFORMED,
+                parse("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\nContent-Length: 5\r\n\r\n"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.geekuz.http;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffloadExecutorTest {
+
+    @Test
+    @DisplayName("Without a pool tasks run on the calling thread and are not shed")
+    void testDispatcherThread() {
+        OffloadExecutor executor = new OffloadExecutor(null);
+        Thread caller = Thread.currentThread();
+        AtomicBoolean ranHere = new AtomicBoolean();
+        executor.execute(() -> ranHere.set(Thread.currentThread() == caller && !OffloadExecutor.isShedding()));
+
+        assertTrue(ranHere.get());
+        assertEquals(0, executor.getInFlight());
+        assertEquals(0, executor.getRejected());
+    }
+
+    @Test
+    @DisplayName("A task the full pool rejects runs inline, marked as shed, and is counted")
+    void testRejection() throws InterruptedException {
+        ExecutorService pool = ExecutionMode.FIXED.newExecutor(1, "offload-test", QueueDiscipline.FIFO.newQueue(0));
+        OffloadExecutor executor = new OffloadExecutor(pool);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            AtomicBoolean shed = new AtomicBoolean();
+            executor.execute(() -> shed.set(OffloadExecutor.isShedding()));
+
+            assertTrue(shed.get());
+            assertFalse(OffloadExecutor.isShedding());
+            assertEquals(1, executor.getRejected());
+            assertEquals(1, executor.getInFlight());
+        } finally {
+            release.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, executor.getInFlight());
+    }
+}
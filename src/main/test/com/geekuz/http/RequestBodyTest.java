@@ -0,0 +1,74 @@
+package com.geekuz.http;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestBodyTest {
+
+    private final RequestBuffer buffer = new RequestBuffer(64);
+
+    /** Buffers the first {@code buffered} bytes of {@code wire}, the rest stays on the "socket". */
+    private InputStream receive(String wire, int buffered) throws IOException {
+        byte[] bytes = wire.getBytes(StandardCharsets.ISO_8859_1);
+        buffer.readFrom(new ByteArrayInputStream(bytes, 0, buffered));
+        return new ByteArrayInputStream(bytes, buffered, bytes.length - buffered);
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        return new String(in.readAllBytes(), StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    @DisplayName("Content-Length bodies stop at their length and leave the next request buffered")
+    void testFixedLength() throws IOException {
+        String head = "POST / HTTP/1.1\r\n\r\n";
+        String body = "x".repeat(100);
+        InputStream socket = receive(head + body + "GET /next", head.length() + 10);
+
+        RequestBody in = new RequestBody(buffer, head.length(), socket, body.length(), false);
+        assertEquals(body, readAll(in));
+        assertTrue(in.drain());
+        assertEquals(100, in.consumed());
+
+        buffer.consume(head.length());
+        String buffered = new String(buffer.array(), 0, buffer.size(), StandardCharsets.ISO_8859_1);
+        assertEquals("GET /next", buffered + readAll(socket));
+    }
+
+    @Test
+    @DisplayName("Chunked bodies are decoded across refills, ignoring extensions and trailers")
+    void testChunked() throws IOException {
+        String head = "POST / HTTP/1.1\r\n\r\n";
+        String wire = "5;name=value\r\nhello\r\n1e\r\n" + "y".repeat(30) + "\r\n0\r\nTrailer: x\r\n\r\n";
+        InputStream socket = receive(head + wire + "NEXT", head.length() + 3);
+
+        RequestBody in = new RequestBody(buffer, head.length(), socket, -1, true);
+        assertEquals("hello" + "y".repeat(30), readAll(in));
+        assertTrue(in.drain());
+        assertEquals(wire.length(), in.consumed());
+
+        buffer.consume(head.length());
+        String buffered = new String(buffer.array(), 0, buffer.size(), StandardCharsets.ISO_8859_1);
+        assertEquals("NEXT", buffered + readAll(socket));
+    }
+
+    @Test
+    @DisplayName("Malformed chunk sizes and truncated bodies fail")
+    void testMalformed() throws IOException {
+        InputStream socket = receive("zz\r\n", 0);
+        RequestBody chunked = new RequestBody(buffer, 0, socket, -1, true);
+        assertThrows(IOException.class, chunked::read);
+
+        RequestBuffer other = new RequestBuffer(16);
+        RequestBody truncated = new RequestBody(other, 0, new ByteArrayInputStream(new byte[3]), 10, false);
+        assertThrows(IOException.class, () -> truncated.readAllBytes());
+        assertFalse(new RequestBody(other, 0, null, 10, false).drain());
+    }
+}
@@ -0,0 +1,92 @@
+package com.geekuz.http;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCompressorTest {
+
+    private static final String JSON = "{\"users\": [" + "{\"username\": \"geek\"},".repeat(200) + "{}]}";
+
+    private final ResponseCompressor compressor = new ResponseCompressor();
+
+    private HttpRequest request(String acceptEncoding) {
+        String head = "GET /api/users HTTP/1.1\r\nAccept-Encoding: " + acceptEncoding + "\r\n\r\n";
+        byte[] buf = head.getBytes(StandardCharsets.ISO_8859_1);
+        HttpRequest request = new HttpRequest();
+        HttpRequestParser.parse(buf, 0, buf.length, request);
+        return request;
+    }
+
+    private static String header(HttpResponse response, String name) {
+        for (int i = 0; i < response.getHeaders().size(); i += 2) {
+            if (response.getHeaders().get(i).equals(name)) {
+                return response.getHeaders().get(i + 1);
+            }
+        }
+        return null;
+    }
+
+    @Test
+    @DisplayName("Bodies are compressed with the accepted encoding and decode to the original")
+    void testNegotiation() throws IOException {
+        HttpResponse response = new HttpResponse();
+        response.send(200, "application/json", JSON);
+        compressor.apply(request("deflate, gzip"), response);
+        assertEquals("gzip", header(response, "Content-Encoding"));
+        assertEquals("Accept-Encoding", header(response, "Vary"));
+        byte[] gzip = new GZIPInputStream(new ByteArrayInputStream(response.getBody())).readAllBytes();
+        assertEquals(JSON, new String(gzip, StandardCharsets.UTF_8));
+
+        response = new HttpResponse();
+        response.send(200, "application/json", JSON);
+        compressor.apply(request("gzip;q=0, deflate"), response);
+        assertEquals("deflate", header(response, "Content-Encoding"));
+        byte[] deflate = new InflaterInputStream(new ByteArrayInputStream(response.getBody())).readAllBytes();
+        assertEquals(JSON, new String(deflate, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Small, binary and unaccepted responses are left alone")
+    void testSkipped() {
+        HttpResponse response = new HttpResponse();
+        response.send(200, "application/json", "{}");
+        compressor.apply(request("gzip"), response);
+        assertNull(header(response, "Content-Encoding"));
+
+        response = new HttpResponse();
+        response.send(200, "image/png", JSON);
+        compressor.apply(request("gzip"), response);
+        assertNull(header(response, "Content-Encoding"));
+
+        response = new HttpResponse();
+        response.send(200, "application/json", JSON);
+        compressor.apply(request("br"), response);
+        assertNull(header(response, "Content-Encoding"));
+        assertEquals("Accept-Encoding", header(response, "Vary"));
+        assertEquals(JSON.length(), response.getBody().length);
+    }
+
+    @Test
+    @DisplayName("Cached responses are compressed once per encoding")
+    void testCachedVariants() {
+        CachedResponse cached = new CachedResponse(200, "application/json", JSON);
+        HttpResponse first = new HttpResponse();
+        first.send(cached);
+        compressor.apply(request("gzip"), first);
+        HttpResponse second = new HttpResponse();
+        second.send(cached);
+        compressor.apply(request("gzip"), second);
+
+        assertNotSame(cached, first.getCached());
+        assertSame(first.getCached(), second.getCached());
+        assertTrue(first.getCached().getBody().length < JSON.length());
+    }
+}
@@ -0,0 +1,123 @@
+package com.geekuz.http;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouterTest {
+
+    private final Handler noop = (request, response) -> { };
+    private Router router;
+
+    @BeforeEach
+    void setUp() {
+        router = new Router()
+                .get("/api/hello", noop)
+                .get("/api/users", noop)
+                .post("/api/users", noop)
+                .get("/api/users/{id}", noop)
+                .get("/api/users/export", noop)
+                .get("/api/users/{id}/roles/{role}", noop)
+                .get("/static/{path*}", noop)
+                .get("/static/favicon.ico", noop);
+    }
+
+    private HttpRequest request(HttpMethod method, String path) {
+        HttpRequest request = new HttpRequest();
+        request.set(method, path, null);
+        return request;
+    }
+
+    @Test
+    @DisplayName("Blocking handlers are marked on their route and still run")
+    void testBlockingHandlers() {
+        assertFalse(router.hasBlockingRoutes());
+        int[] calls = new int[1];
+        router.put("/api/users/{id}", Handler.blocking((request, response) -> calls[0]++));
+        assertTrue(router.hasBlockingRoutes());
+
+        HttpRequest request = request(HttpMethod.PUT, "/api/users/7");
+        assertTrue(router.match(request).getHandler().isBlocking());
+        assertFalse(router.match(request(HttpMethod.GET, "/api/users/7")).getHandler().isBlocking());
+        router.dispatch(request, new HttpResponse());
+        assertEquals(1, calls[0]);
+    }
+
+    @Test
+    @DisplayName("Static routes are matched by method and path")
+    void testStaticRoutes() {
+        assertEquals("/api/hello", router.match(request(HttpMethod.GET, "/api/hello")).getTemplate());
+        assertEquals(HttpMethod.POST, router.match(request(HttpMethod.POST, "/api/users")).getMethod());
+        assertNull(router.match(request(HttpMethod.GET, "/api/hello/extra")));
+        assertNull(router.match(request(HttpMethod.GET, "/api")));
+    }
+
+    @Test
+    @DisplayName("Path parameters are captured and static segments take precedence")
+    void testPathParameters() {
+        HttpRequest request = request(HttpMethod.GET, "/api/users/42/roles/ADMIN");
+        assertEquals("/api/users/{id}/roles/{role}", router.match(request).getTemplate());
+        assertEquals("42", request.pathParam("id"));
+        assertEquals("ADMIN", request.pathParam("role"));
+
+        assertEquals("/api/users/export", router.match(request(HttpMethod.GET, "/api/users/export")).getTemplate());
+        assertEquals("/api/users/{id}", router.match(request(HttpMethod.GET, "/api/users/7")).getTemplate());
+    }
+
+    @Test
+    @DisplayName("A static segment without a route for the method falls through to the parameter")
+    void testStaticFallsThroughToParameter() {
+        router.delete("/api/users/{id}", noop);
+        HttpRequest request = request(HttpMethod.DELETE, "/api/users/export");
+        assertEquals("/api/users/{id}", router.match(request).getTemplate());
+        assertEquals("export", request.pathParam("id"));
+        assertEquals("/api/users/export", router.match(request(HttpMethod.GET, "/api/users/export")).getTemplate());
+
+        // No route for the method anywhere: 405 with what the static route allows
+        HttpResponse response = new HttpResponse();
+        router.dispatch(request(HttpMethod.PUT, "/api/users/export"), response);
+        assertEquals(405, response.getStatus());
+        assertEquals("GET", response.getHeaders().get(1));
+    }
+
+    @Test
+    @DisplayName("Dispatch answers 404, 405 and falls back from HEAD to GET")
+    void testDispatchStatuses() {
+        HttpResponse response = new HttpResponse();
+
+        router.dispatch(request(HttpMethod.GET, "/missing"), response);
+        assertEquals(404, response.getStatus());
+
+        router.dispatch(request(HttpMethod.DELETE, "/api/users"), response);
+        assertEquals(405, response.getStatus());
+        assertEquals("GET, POST", response.getHeaders().get(1));
+
+        assertNotNull(router.dispatch(request(HttpMethod.HEAD, "/api/hello"), response));
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    @DisplayName("Many static siblings are still found")
+    void testManyRoutes() {
+        for (int i = 0; i < 100; i++) {
+            router.get("/api/items" + i + "/{id}", noop);
+        }
+        HttpRequest request = request(HttpMethod.GET, "/api/items73/9");
+        assertEquals("/api/items73/{id}", router.match(request).getTemplate());
+        assertEquals("9", request.pathParam("id"));
+    }
+
+    @Test
+    @DisplayName("A trailing wildcard takes the rest of the path")
+    void testWildcard() {
+        HttpRequest request = request(HttpMethod.GET, "/static/css/site.css");
+        assertEquals("/static/{path*}", router.match(request).getTemplate());
+        assertEquals("css/site.css", request.pathParam("path"));
+
+        assertEquals("/static/favicon.ico", router.match(request(HttpMethod.GET, "/static/favicon.ico")).getTemplate());
+        assertNull(router.match(request(HttpMethod.GET, "/static")));
+        assertThrows(IllegalArgumentException.class, () -> router.get("/files/{path*}/meta", noop));
+    }
+}
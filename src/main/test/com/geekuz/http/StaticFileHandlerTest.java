@@ -0,0 +1,95 @@
+package com.geekuz.http;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StaticFileHandlerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Single byte ranges are clamped to the file size")
+    void testRanges() {
+        assertArrayEquals(new long[] {0, 99}, StaticFileHandler.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[] {500, 999}, StaticFileHandler.parseRange("bytes=500-", 1000));
+        assertArrayEquals(new long[] {900, 999}, StaticFileHandler.parseRange("bytes=-100", 1000));
+        assertArrayEquals(new long[] {0, 999}, StaticFileHandler.parseRange("bytes=-5000", 1000));
+        assertArrayEquals(new long[] {990, 999}, StaticFileHandler.parseRange("bytes=990-5000", 1000));
+    }
+
+    @Test
+    @DisplayName("Unsatisfiable ranges are rejected, unsupported ones ignored")
+    void testInvalidRanges() {
+        assertNull(StaticFileHandler.parseRange("bytes=1000-", 1000));
+        assertNull(StaticFileHandler.parseRange("bytes=-0", 1000));
+        assertEquals(0, StaticFileHandler.parseRange("bytes=0-1,5-6", 1000).length);
+        assertEquals(0, StaticFileHandler.parseRange("items=0-1", 1000).length);
+        assertEquals(0, StaticFileHandler.parseRange("bytes=9-3", 1000).length);
+        assertEquals(0, StaticFileHandler.parseRange("bytes=x-3", 1000).length);
+    }
+
+    @Test
+    @DisplayName("The open file cache serves regular files and refuses directories and missing files")
+    void testOpenFileCache() throws IOException {
+        Path file = Files.writeString(dir.resolve("app.js"), "alert(1)");
+        Files.createDirectory(dir.resolve("assets"));
+        OpenFileCache cache = new OpenFileCache(4, 0);
+
+        OpenFileCache.OpenFile open = cache.acquire(file);
+        assertEquals(8, open.size());
+        open.release();
+        assertThrows(NoSuchFileException.class, () -> cache.acquire(dir.resolve("assets")));
+        assertThrows(NoSuchFileException.class, () -> cache.acquire(dir.resolve("missing.js")));
+
+        // Replaced by a directory after it was cached
+        Files.delete(file);
+        Files.createDirectory(file);
+        assertThrows(NoSuchFileException.class, () -> cache.acquire(file));
+        cache.clear();
+    }
+
+    @Test
+    @DisplayName("Links inside the root are followed, links out of it are not")
+    void testLinks() throws IOException {
+        Path root = Files.createDirectory(dir.resolve("static"));
+        Files.writeString(root.resolve("daily menu.txt"), "menu");
+        Path secret = Files.writeString(dir.resolve("secret.txt"), "secret");
+        Files.createSymbolicLink(root.resolve("leak.txt"), secret);
+        Files.createSymbolicLink(root.resolve("menu.txt"), root.resolve("daily menu.txt"));
+        Router router = new Router().get("/static/{path*}", new StaticFileHandler(root));
+
+        assertEquals(200, get(router, "/static/daily%20menu.txt"));
+        assertEquals(200, get(router, "/static/menu.txt"));
+        assertEquals(404, get(router, "/static/leak.txt"));
+        assertEquals(404, get(router, "/static/..%2Fsecret.txt"));
+    }
+
+    @Test
+    @DisplayName("Paths are percent-decoded as UTF-8, also next to characters sent as they are")
+    void testDecode() {
+        assertEquals("caf\u00e9 menu.txt", StaticFileHandler.decode("caf\u00e9%20menu.txt"));
+        assertEquals("caf\u00e9 men\u00fc.txt", StaticFileHandler.decode("caf%C3%A9 men\u00fc.txt"));
+        assertEquals("\ud83d\ude00/a+b", StaticFileHandler.decode("\ud83d\ude00%2Fa+b"));
+        assertNull(StaticFileHandler.decode("bad%2"));
+    }
+
+    private static int get(Router router, String path) {
+        HttpRequest request = new HttpRequest();
+        request.set(HttpMethod.GET, path, null);
+        HttpResponse response = new HttpResponse();
+        router.dispatch(request, response);
+        if (response.getFile() != null) {
+            response.getFile().release();
+        }
+        return response.getStatus();
+    }
+}
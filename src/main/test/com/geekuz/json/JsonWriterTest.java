@@ -0,0 +1,121 @@
+package com.geekuz.json;
+
+import com.geekuz.dto.AddressDTO;
+import com.geekuz.dto.UserDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonWriterTest {
+
+    @Test
+    @DisplayName("A full UserDTO is written with its nested address and roles")
+    void testUser() throws IOException {
+        JsonWriter json = new JsonWriter();
+        new UserDTOEncoder().write(json, user(1L, "johndoe"));
+
+        assertEquals("{\"id\":1,\"username\":\"johndoe\",\"email\":\"john.doe@example.com\",\"birthDate\":\"1990-05-15\","
+                + "\"address\":{\"fullAddress\":\"123 Main St, USA\",\"city\":\"New York\",\"zipCode\":\"10001\"},"
+                + "\"roleNames\":[\"ADMIN\",\"USER\"],\"age\":35}", text(json));
+    }
+
+    @Test
+    @DisplayName("Null fields are left out")
+    void testNullFields() throws IOException {
+        UserDTO user = new UserDTO();
+        user.setUsername("anon");
+        user.setAddress(new AddressDTO());
+        JsonWriter json = new JsonWriter();
+        new UserDTOEncoder().write(json, user);
+
+        assertEquals("{\"username\":\"anon\",\"address\":{},\"age\":0}", text(json));
+    }
+
+    @Test
+    @DisplayName("Strings are escaped and encoded as UTF-8")
+    void testEscaping() throws IOException {
+        String value = "quote\" back\\ tab\t nl\n bell\u0007 \u00e9 \u20ac \uD83D\uDE00 lone\uD800";
+        JsonWriter json = new JsonWriter(64);
+        json.string(value);
+
+        assertEquals("\"quote\\\" back\\\\ tab\\t nl\\n bell\\u0007 \u00e9 \u20ac \uD83D\uDE00 lone?\"", text(json));
+    }
+
+    @Test
+    @DisplayName("Dates and numbers are written without going through toString")
+    void testDatesAndNumbers() throws IOException {
+        JsonWriter json = new JsonWriter();
+        json.beginArray().date(LocalDate.of(7, 1, 2)).date(LocalDate.of(12345, 12, 31))
+                .number(0).number(-42).number(Long.MAX_VALUE).number(Long.MIN_VALUE).endArray();
+
+        assertEquals("[\"0007-01-02\",\"+12345-12-31\",0,-42,9223372036854775807,-9223372036854775808]", text(json));
+    }
+
+    @Test
+    @DisplayName("With a sink, a list larger than the buffer streams through it")
+    void testSink() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter json = new JsonWriter(out, 64);
+        UserDTO[] users = new UserDTO[100];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = user((long) i, "user" + i);
+        }
+        json.array(Arrays.asList(users), new UserDTOEncoder());
+        json.flush();
+
+        assertEquals(64, json.buffer().length);
+        assertEquals(out.size(), json.written());
+        JsonWriter single = new JsonWriter();
+        new UserDTOEncoder().write(single, users[99]);
+        String all = out.toString(StandardCharsets.UTF_8);
+        assertTrue(all.startsWith("[{\"id\":0,"));
+        assertTrue(all.endsWith("," + text(single) + "]"));
+    }
+
+    @Test
+    @DisplayName("Encoded users decode back, with unknown members skipped")
+    void testRoundTrip() throws IOException {
+        JsonWriter json = new JsonWriter();
+        new UserDTOEncoder().write(json, user(7L, "tab\there \u00e9\uD83D\uDE00"));
+        String document = text(json).replace("{\"id\"", " {\"extra\": [1, {\"x\": null}, -2.5e3], \"id\"");
+
+        UserDTO decoded = new UserDTODecoder().read(new JsonReader(document.getBytes(StandardCharsets.UTF_8)));
+        JsonWriter again = new JsonWriter();
+        new UserDTOEncoder().write(again, decoded);
+        // age is derived and not read back
+        assertEquals(text(json).replace("\"age\":35", "\"age\":0"), text(again));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new UserDTODecoder().read(new JsonReader("{\"id\":1 \"username\":\"x\"}".getBytes(StandardCharsets.UTF_8))));
+        assertThrows(IllegalArgumentException.class,
+                () -> new UserDTODecoder().read(new JsonReader("{\"birthDate\":\"yesterday\"}".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static UserDTO user(Long id, String username) {
+        AddressDTO address = new AddressDTO();
+        address.setFullAddress("123 Main St, USA");
+        address.setCity("New York");
+        address.setZipCode("10001");
+        UserDTO user = new UserDTO();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail("john.doe@example.com");
+        user.setBirthDate(LocalDate.of(1990, 5, 15));
+        user.setAddress(address);
+        user.setRoleNames(List.of("ADMIN", "USER"));
+        user.setAge(35);
+        return user;
+    }
+
+    private static String text(JsonWriter json) {
+        return new String(json.buffer(), 0, json.size(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,88 @@
+package com.geekuz.logging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncLoggerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Access events are written with the configured fields in order")
+    void testFields() throws IOException {
+        AccessLogOptions options = new AccessLogOptions();
+        options.setFile(dir.resolve("access.log"));
+        options.setFields(AccessLogField.parseList("method,path,route,status,bytes_in,bytes_out,duration"));
+        AsyncLogger log = new AsyncLogger(options);
+        byte[] buf = "xx/api/users/42yy".getBytes(StandardCharsets.US_ASCII);
+        assertTrue(log.access("GET", buf, 2, 15, "/api/users/{id}", 200, 120, 3456, 789));
+        assertTrue(log.access(null, buf, 0, 0, null, 501, 0, 15, 0));
+        log.close();
+
+        List<String> lines = Files.readAllLines(options.getFile());
+        assertEquals(List.of("GET /api/users/42 /api/users/{id} 200 120 3456 789", "- - - 501 0 15 0"), lines);
+    }
+
+    @Test
+    @DisplayName("Timestamps are UTC with milliseconds")
+    void testTime() throws IOException {
+        AccessLogOptions options = new AccessLogOptions();
+        options.setFile(dir.resolve("access.log"));
+        options.setFields(List.of(AccessLogField.TIME));
+        AsyncLogger log = new AsyncLogger(options);
+        log.access("GET", new byte[0], 0, 0, null, 200, 0, 0, 0);
+        log.close();
+
+        String line = Files.readAllLines(options.getFile()).get(0);
+        assertTrue(line.matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}Z"), line);
+    }
+
+    @Test
+    @DisplayName("The file is rolled over once it would grow past the limit")
+    void testRollOver() throws IOException, InterruptedException {
+        AccessLogOptions options = new AccessLogOptions();
+        options.setFile(dir.resolve("access.log"));
+        options.setFields(List.of(AccessLogField.STATUS));
+        options.setMaxFileBytes(8);
+        options.setMaxFiles(2);
+        AsyncLogger log = new AsyncLogger(options);
+        for (int i = 0; i < 10; i++) {
+            log.access("GET", new byte[0], 0, 0, null, 200, 0, 0, 0);
+            // Give the writer time to flush, so every line is its own write
+            Thread.sleep(10);
+        }
+        log.close();
+
+        assertTrue(Files.exists(dir.resolve("access.log.1")));
+        assertTrue(Files.exists(dir.resolve("access.log.2")));
+        assertFalse(Files.exists(dir.resolve("access.log.3")));
+        assertTrue(Files.size(options.getFile()) <= 8);
+    }
+
+    @Test
+    @DisplayName("A full ring refuses claims instead of waiting")
+    void testFullRing() {
+        RingBuffer ring = new RingBuffer(4, 16);
+        for (int i = 0; i < ring.capacity(); i++) {
+            long sequence = ring.tryClaim();
+            assertEquals(i, sequence);
+            ring.publish(sequence);
+        }
+        assertEquals(-1, ring.tryClaim());
+
+        assertNotNull(ring.poll(0));
+        assertNull(ring.poll(ring.capacity()));
+        ring.release(1);
+        assertEquals(ring.capacity(), ring.tryClaim());
+    }
+}
@@ -0,0 +1,76 @@
+package com.geekuz.mapper;
+
+import com.geekuz.dto.AddressDTO;
+import com.geekuz.entity.Address;
+import com.geekuz.entity.StringDictionary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AddressMapperTest {
+    private final AddressMapper mapper = Mappers.getMapper(AddressMapper.class);
+
+    @Test
+    @DisplayName("Addresses survive a round trip through fullAddress, including missing parts")
+    void testRoundTrip() {
+        assertRoundTrip("12 Amir Temur Avenue", "Uzbekistan");
+        assertRoundTrip("12 Amir Temur Avenue", null);
+        assertRoundTrip(null, "Uzbekistan");
+        assertRoundTrip(null, null);
+
+        AddressDTO dto = new AddressDTO();
+        dto.setFullAddress("  5 Navoi Street ,\tUzbekistan , extra");
+        Address address = mapper.addressDTOToAddress(dto);
+        assertEquals("5 Navoi Street", address.getStreet());
+        assertEquals("Uzbekistan", address.getCountry());
+        assertEquals(address.getStreet(), mapper.extractStreet(dto.getFullAddress()));
+        assertEquals(address.getCountry(), mapper.extractCountry(dto.getFullAddress()));
+
+        dto.setFullAddress("no comma");
+        assertNull(mapper.addressDTOToAddress(dto).getStreet());
+        assertNull(mapper.extractCountry("trailing,"));
+    }
+
+    @Test
+    @DisplayName("Repeated values share one string until the dictionary is full")
+    void testDictionary() {
+        StringDictionary dictionary = new StringDictionary(100);
+        List<String> cities = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            cities.add(dictionary.intern("city" + i % 100));
+        }
+        assertEquals(100, dictionary.size());
+        assertSame(cities.get(7), cities.get(907));
+        assertEquals("city42", dictionary.intern(new String("city42")));
+        assertNull(dictionary.intern(null));
+
+        // Full: new values are kept as given and do not grow it
+        String extra = new String("city100");
+        assertSame(extra, dictionary.intern(extra));
+        assertNotSame(extra, dictionary.intern(new String("city100")));
+        assertEquals(100, dictionary.size());
+        assertSame(cities.get(3), dictionary.intern(new String("city3")));
+
+        Address first = new Address();
+        first.setCity(new String("Samarkand"));
+        Address second = new Address();
+        second.setCity(new String("Samarkand"));
+        assertSame(first.getCity(), second.getCity());
+    }
+
+    private void assertRoundTrip(String street, String country) {
+        Address address = new Address();
+        address.setStreet(street);
+        address.setCountry(country);
+        address.setCity("Tashkent");
+        Address back = mapper.addressDTOToAddress(mapper.addressToAddressDTO(address));
+        assertEquals(street, back.getStreet());
+        assertEquals(country, back.getCountry());
+        assertEquals("Tashkent", back.getCity());
+    }
+}
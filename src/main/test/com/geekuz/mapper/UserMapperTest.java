@@ -0,0 +1,119 @@
+package com.geekuz.mapper;
+
+import com.geekuz.dto.AddressDTO;
+import com.geekuz.dto.UserDTO;
+import com.geekuz.entity.Address;
+import com.geekuz.entity.Role;
+import com.geekuz.entity.User;
+import com.geekuz.entity.UserChanges;
+import com.geekuz.entity.UserField;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserMapperTest {
+    private final UserMapper mapper = Mappers.getMapper(UserMapper.class);
+
+    @Test
+    @DisplayName("Ages match Period.between, including birth dates in the future")
+    void testCalculateAge() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            LocalDate birth = LocalDate.ofEpochDay(random.nextInt(40_000) - 10_000);
+            LocalDate today = LocalDate.ofEpochDay(random.nextInt(40_000) - 10_000);
+            assertEquals(Period.between(birth, today).getYears(), mapper.calculateAge(birth, today), birth + " " + today);
+        }
+        assertEquals(0, mapper.calculateAge(null, LocalDate.now()));
+    }
+
+    @Test
+    @DisplayName("Bulk mapping in parallel gives the same users in the same order as one at a time")
+    void testBulkMapping() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            User user = new User();
+            user.setId((long) i);
+            user.setUsername("user" + i);
+            user.setBirthDate(LocalDate.of(1950, 1, 1).plusDays(i * 3L));
+            Role role = new Role();
+            role.setName(i % 2 == 0 ? "ADMIN" : "USER");
+            user.setRoles(List.of(role));
+            users.add(user);
+        }
+        users.set(17, null);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<UserDTO> dtos = mapper.usersToUserDTOs(users, pool, 100);
+            assertEquals(users.size(), dtos.size());
+            assertNull(dtos.get(17));
+            for (int i = 0; i < users.size(); i++) {
+                if (i == 17) {
+                    continue;
+                }
+                UserDTO expected = mapper.userToUserDTO(users.get(i));
+                UserDTO actual = dtos.get(i);
+                assertEquals(expected.getUsername(), actual.getUsername());
+                assertEquals(expected.getAge(), actual.getAge());
+                assertEquals(expected.getRoleNames(), actual.getRoleNames());
+            }
+
+            List<User> back = mapper.userDTOsToUsers(new LinkedList<>(dtos), pool, 100);
+            assertEquals("user9999", back.get(9999).getUsername());
+            assertNull(back.get(17));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(List.of(), mapper.usersToUserDTOs(List.of()));
+        assertNull(mapper.userDTOsToUsers(null));
+        assertEquals(Arrays.asList((UserDTO) null), mapper.usersToUserDTOs(Arrays.asList((User) null)));
+    }
+
+    @Test
+    @DisplayName("A copy-on-write update reports exactly the fields whose values changed")
+    void testChanges() {
+        User user = new User();
+        user.setId(5L);
+        user.setUsername("geek");
+        user.setEmail("geek@example.uz");
+        Address address = new Address();
+        address.setStreet("12 Amir Temur Avenue");
+        address.setCity("Tashkent");
+        user.setAddress(address);
+
+        UserDTO same = new UserDTO();
+        same.setId(99L);
+        same.setUsername("geek");
+        same.setAddress(mapperAddress(address));
+        UserChanges none = mapper.updateCopyFromDTO(same, user);
+        assertTrue(none.isEmpty());
+        assertSame(address, none.after().getAddress());
+        assertEquals(5L, none.after().getId());
+
+        UserDTO patch = new UserDTO();
+        patch.setEmail("new@example.uz");
+        patch.setRoleNames(List.of("ADMIN"));
+        UserChanges changes = mapper.updateCopyFromDTO(patch, user);
+        assertEquals(Set.of(UserField.EMAIL, UserField.ROLES), changes.fields());
+        assertEquals(UserField.EMAIL.bit() | UserField.ROLES.bit(), changes.mask());
+        assertEquals("geek@example.uz", changes.oldValue(UserField.EMAIL));
+        assertEquals("new@example.uz", changes.newValue(UserField.EMAIL));
+        assertEquals("geek@example.uz", user.getEmail());
+    }
+
+    private static AddressDTO mapperAddress(Address address) {
+        return Mappers.getMapper(AddressMapper.class).addressToAddressDTO(address);
+    }
+}
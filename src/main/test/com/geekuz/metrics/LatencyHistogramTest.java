@@ -0,0 +1,60 @@
+package com.geekuz.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Every value falls into a bucket whose upper bound is within 3% of it")
+    void testBucketPrecision() {
+        for (long value = 0; value < 10_000_000; value = value * 11 / 10 + 1) {
+            long upper = LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(value));
+            assertTrue(upper >= value, "upper bound below value " + value);
+            assertTrue(upper - value <= Math.max(1, value / 32), "bucket too wide for " + value);
+        }
+    }
+
+    @Test
+    @DisplayName("Percentiles come from the merged stripes")
+    void testPercentiles() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 1; i <= 1000; i++) {
+                    histogram.recordMicros(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(4000, snapshot.getCount());
+        assertEquals(500, snapshot.percentile(50), 500 / 32);
+        assertEquals(990, snapshot.percentile(99), 990 / 32);
+        assertEquals(1000, snapshot.percentile(100), 1000 / 32);
+    }
+
+    @Test
+    @DisplayName("A stall is back-filled with the samples the expected interval would have taken")
+    void testCoordinatedOmissionCorrection() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.recordMicros(10, 100);
+        }
+        // One request stalled for 10 ms while the client meant to send every 100 us
+        histogram.recordMicros(10_000, 100);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(99 + 100, snapshot.getCount());
+        assertEquals(10_000, snapshot.getMax(), 10_000 / 32);
+        // Without the correction p90 would still be 10 us
+        assertTrue(snapshot.percentile(90) > 5_000);
+    }
+}
@@ -0,0 +1,228 @@
+package com.geekuz.store;
+
+import com.geekuz.entity.Address;
+import com.geekuz.entity.Roles;
+import com.geekuz.entity.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Values, overwrites and deletes survive reopening the store")
+    void testReopen() throws IOException {
+        try (LogStore log = open(1024 * 1024)) {
+            log.put(1, bytes("one"));
+            log.put(2, bytes("two"));
+            log.put(1, bytes("uno"));
+            log.put(3, bytes("three"));
+            assertTrue(log.delete(3));
+            assertFalse(log.delete(3));
+            assertEquals("uno", string(log.get(1)));
+            assertNull(log.get(3));
+        }
+        try (LogStore log = open(1024 * 1024)) {
+            assertEquals("uno", string(log.get(1)));
+            assertEquals("two", string(log.get(2)));
+            assertNull(log.get(3));
+            assertEquals(2, log.size());
+            assertEquals(3, log.maxKey());
+        }
+    }
+
+    @Test
+    @DisplayName("A torn write at the end of the log is dropped and writing carries on after it")
+    void testTornWrite() throws IOException {
+        try (LogStore log = open(1024 * 1024)) {
+            log.put(1, bytes("kept"));
+            log.put(2, bytes("torn"));
+        }
+        // Damage the value of the second record, as if the crash hit before all of it was written
+        Path segment = segments().get(0);
+        int second = LogSegment.recordBytes(4);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes("xx")), second + LogSegment.HEADER_BYTES + 1);
+        }
+        try (LogStore log = open(1024 * 1024)) {
+            assertEquals("kept", string(log.get(1)));
+            assertNull(log.get(2));
+            log.put(3, bytes("after"));
+        }
+        try (LogStore log = open(1024 * 1024)) {
+            assertEquals("kept", string(log.get(1)));
+            assertNull(log.get(2));
+            assertEquals("after", string(log.get(3)));
+        }
+    }
+
+    @Test
+    @DisplayName("Compaction deletes mostly dead segments and keeps the latest values and deletions")
+    void testCompaction() throws IOException {
+        try (LogStore log = open(4096)) {
+            for (int round = 0; round < 20; round++) {
+                for (long key = 1; key <= 20; key++) {
+                    log.put(key, bytes("value " + key + " round " + round));
+                }
+            }
+            log.delete(7);
+            int before = log.segmentCount();
+            log.compact();
+            assertTrue(log.compactedSegments() > 0);
+            assertTrue(log.segmentCount() < before, log.segmentCount() + " of " + before);
+            for (long key = 1; key <= 20; key++) {
+                assertEquals(key == 7 ? null : "value " + key + " round 19", string(log.get(key)));
+            }
+        }
+        try (LogStore log = open(4096)) {
+            assertEquals(19, log.size());
+            assertNull(log.get(7));
+            assertEquals("value 20 round 19", string(log.get(20)));
+        }
+    }
+
+    @Test
+    @DisplayName("The highest key survives compaction dropping every record of it")
+    void testMaxKeyAfterCompaction() throws IOException {
+        try (LogStore log = open(4096)) {
+            log.put(100, bytes("highest"));
+            log.delete(100);
+            // Overwrite one key until the records of 100 are in a mostly dead, oldest segment
+            for (int round = 0; round < 200; round++) {
+                log.put(1, bytes("value round " + round));
+            }
+            log.compact();
+            log.compact();
+            assertFalse(Files.exists(dir.resolve("0000000001.seg")));
+        }
+        try (LogStore log = open(4096)) {
+            assertEquals(100, log.maxKey());
+            assertNull(log.get(100));
+        }
+    }
+
+    @Test
+    @DisplayName("A user store backed by a log starts out with the users saved in it")
+    void testUserStore() throws IOException {
+        long id;
+        try (LogStore log = open(1024 * 1024)) {
+            UserStore store = new UserStore(log);
+            User geek = new User();
+            geek.setUsername("geek");
+            geek.setEmail("Geek@Example.uz");
+            geek.setBirthDate(LocalDate.of(1990, 5, 17));
+            geek.setRoles(List.of(Roles.ADMIN));
+            Address address = new Address();
+            address.setStreet("12 Amir Temur Avenue");
+            address.setCity("Tashkent");
+            geek.setAddress(address);
+            id = store.insert(geek).getId();
+            User gone = new User();
+            gone.setUsername("gone");
+            store.delete(store.insert(gone).getId());
+        }
+        try (LogStore log = open(1024 * 1024)) {
+            UserStore store = new UserStore(log);
+            User geek = store.findByEmail("geek@example.uz");
+            assertEquals(id, geek.getId());
+            assertEquals("geek", geek.getUsername());
+            assertEquals(LocalDate.of(1990, 5, 17), geek.getBirthDate());
+            assertEquals(List.of("ADMIN"), geek.getRoleSet().names());
+            assertEquals("12 Amir Temur Avenue", geek.getAddress().getStreet());
+            assertSame(geek, store.findByCity("Tashkent").get(0));
+            assertNull(store.findByUsername("gone"));
+            assertEquals(id + 2, store.insert(new User()).getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Roles are stored by name, and ones no longer registered are dropped on load")
+    void testRoleNames() {
+        User user = new User();
+        user.setId(7L);
+        user.setRoles(List.of(Roles.ADMIN, Roles.USER));
+        byte[] record = UserRecords.encode(user);
+        assertEquals(List.of("ADMIN", "USER"), UserRecords.decode(record).getRoleSet().names());
+
+        String text = new String(record, StandardCharsets.ISO_8859_1);
+        byte[] renamed = text.replace("ADMIN", "ADMIX").getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(List.of("USER"), UserRecords.decode(renamed).getRoleSet().names());
+    }
+
+    @Test
+    @DisplayName("Durable writers from many threads share forces, and syncs fail once the log is closed")
+    void testGroupCommit() throws Exception {
+        int threads = 8;
+        int users = 50;
+        LogStoreOptions options = new LogStoreOptions();
+        options.setDirectory(dir);
+        options.setCompactionIntervalMillis(0);
+        options.setGroupCommitLingerMicros(2_000);
+        LogStore log = new LogStore(options);
+        UserStore store = new UserStore(log, true);
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            String prefix = "user" + t + "-";
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < users; i++) {
+                    User user = new User();
+                    user.setUsername(prefix + i);
+                    store.insert(user);
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(threads * users, log.size());
+        long batches = log.syncBatches();
+        assertTrue(batches > 0 && batches < threads * users, batches + " forces for " + threads * users + " writes");
+        log.close();
+        CompletionException e = assertThrows(CompletionException.class, () -> log.sync().join());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+
+        try (LogStore reopened = open(options.getSegmentBytes())) {
+            assertNotNull(new UserStore(reopened).findByUsername("user7-49"));
+        }
+    }
+
+    private LogStore open(int segmentBytes) throws IOException {
+        LogStoreOptions options = new LogStoreOptions();
+        options.setDirectory(dir);
+        options.setSegmentBytes(segmentBytes);
+        options.setCompactionIntervalMillis(0);
+        return new LogStore(options);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+    }
+}
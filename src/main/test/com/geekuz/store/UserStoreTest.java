@@ -0,0 +1,224 @@
+package com.geekuz.store;
+
+import com.geekuz.entity.Address;
+import com.geekuz.entity.User;
+import com.geekuz.entity.UserChanges;
+import com.geekuz.mapper.UserMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserStoreTest {
+    private final UserMapper mapper = Mappers.getMapper(UserMapper.class);
+
+    @Test
+    @DisplayName("Users are found by id, username, email and city")
+    void testLookups() {
+        UserStore store = new UserStore();
+        User geek = store.insert(user("geek", "Geek@Example.uz", "Tashkent"));
+        User other = store.insert(user("other", "other@example.uz", "Tashkent"));
+        store.insert(user("far", "far@example.uz", "Bukhara"));
+
+        assertEquals(1, geek.getId());
+        assertSame(geek, store.get(1));
+        assertSame(other, store.findByUsername("other"));
+        assertSame(geek, store.findByEmail("geek@example.UZ"));
+        assertEquals(2, store.findByCity("Tashkent").size());
+        assertEquals(3, store.size());
+        assertNull(store.get(4));
+    }
+
+    @Test
+    @DisplayName("Usernames and emails stay unique, also across updates")
+    void testUniqueness() {
+        UserStore store = new UserStore();
+        store.insert(user("geek", "geek@example.uz", null));
+        User other = store.insert(user("other", "other@example.uz", null));
+
+        DuplicateUserException e = assertThrows(DuplicateUserException.class,
+                () -> store.insert(user("geek", "new@example.uz", null)));
+        assertEquals("username", e.getField());
+        // The failed insert must not keep the email it claimed first
+        assertNull(store.findByEmail("new@example.uz"));
+
+        User renamed = user("geek", "other@example.uz", null);
+        renamed.setId(other.getId());
+        assertThrows(DuplicateUserException.class, () -> store.replace(renamed));
+        assertSame(other, store.findByUsername("other"));
+    }
+
+    @Test
+    @DisplayName("Replacing and deleting keep the indexes in step")
+    void testReplaceAndDelete() {
+        UserStore store = new UserStore();
+        User geek = store.insert(user("geek", "geek@example.uz", "Tashkent"));
+
+        User moved = user("geek2", "geek@example.uz", "Samarkand");
+        moved.setId(geek.getId());
+        assertSame(geek, store.replace(moved));
+        assertNull(store.findByUsername("geek"));
+        assertSame(moved, store.findByUsername("geek2"));
+        assertSame(moved, store.findByEmail("geek@example.uz"));
+        assertTrue(store.findByCity("Tashkent").isEmpty());
+        assertEquals(1, store.findByCity("Samarkand").size());
+
+        assertSame(moved, store.delete(geek.getId()));
+        assertNull(store.delete(geek.getId()));
+        assertNull(store.findByUsername("geek2"));
+        assertNull(store.findByEmail("geek@example.uz"));
+        assertTrue(store.findByCity("Samarkand").isEmpty());
+
+        User missing = user("ghost", null, null);
+        missing.setId(99L);
+        assertNull(store.replace(missing));
+        assertNull(store.findByUsername("ghost"));
+    }
+
+    @Test
+    @DisplayName("Replacing with a change set skips no-ops and refuses a stale base")
+    void testReplaceChanges() {
+        UserStore store = new UserStore();
+        User stored = store.insert(user("alice", "alice@example.uz", "Tashkent"));
+
+        User same = mapper.copyUser(stored);
+        assertTrue(store.replace(UserChanges.between(stored, same)));
+        assertSame(stored, store.get(stored.getId()));
+
+        User renamed = mapper.copyUser(stored);
+        renamed.setUsername("alicia");
+        assertTrue(store.replace(UserChanges.between(stored, renamed)));
+        assertSame(renamed, store.findByUsername("alicia"));
+        assertNull(store.findByUsername("alice"));
+        assertSame(renamed, store.findByEmail("alice@example.uz"));
+        assertSame(renamed, store.findByCity("Tashkent").get(0));
+
+        // Based on a user that is no longer stored
+        User stale = mapper.copyUser(stored);
+        stale.setUsername("bob");
+        assertFalse(store.replace(UserChanges.between(stored, stale)));
+        assertNull(store.findByUsername("bob"));
+        assertSame(renamed, store.get(stored.getId()));
+    }
+
+    @Test
+    @DisplayName("A cursor walks users in id order, skips deleted ones and resumes after a token")
+    void testCursor() {
+        UserStore store = new UserStore();
+        for (int i = 1; i <= 5; i++) {
+            store.insert(user("user" + i, null, null));
+        }
+        store.delete(2);
+        store.delete(5);
+
+        UserStore.Cursor cursor = store.cursor(0);
+        assertEquals(1, cursor.next().getId());
+        assertEquals(3, cursor.next().getId());
+        // Seen by an open cursor because its id has not been passed yet
+        store.insert(user("user6", null, null));
+        assertEquals(4, cursor.next().getId());
+        assertEquals(6, cursor.next().getId());
+        assertNull(cursor.next());
+
+        assertEquals(4, store.cursor(3).next().getId());
+        assertNull(store.cursor(6).next());
+    }
+
+    @Test
+    @DisplayName("Paging with a cursor during concurrent inserts never skips a user")
+    void testCursorDuringInserts() throws InterruptedException {
+        UserStore store = new UserStore();
+        int threads = 4;
+        int users = 5_000;
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            String prefix = "user" + t + "-";
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < users; i++) {
+                    store.insert(user(prefix + i, null, null));
+                }
+            });
+            writers[t].start();
+        }
+        long after = 0;
+        long seen = 0;
+        boolean done = false;
+        while (!done) {
+            done = Arrays.stream(writers).noneMatch(Thread::isAlive);
+            UserStore.Cursor cursor = store.cursor(after);
+            User user;
+            while ((user = cursor.next()) != null) {
+                assertEquals(after + 1, user.getId(), "skipped an id");
+                after = user.getId();
+                seen++;
+            }
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(threads * users, seen);
+    }
+
+    @Test
+    @DisplayName("The open-addressing map agrees with HashMap under random puts and removes")
+    void testLongObjectMap() {
+        LongObjectMap<Long> map = new LongObjectMap<>(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = -100; key < 4_900; key++) {
+            assertEquals(expected.get(key), map.get(key), "key " + key);
+        }
+    }
+
+    @Test
+    @DisplayName("Readers always find keys that concurrent writers are not touching")
+    void testConcurrentReads() throws InterruptedException {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>(4, 16);
+        for (long key = 1; key <= 1000; key++) {
+            map.put(key, key);
+        }
+        Thread writer = new Thread(() -> {
+            // Churn other keys, forcing resizes and back-shifting removes
+            for (long key = 1001; key <= 200_000; key++) {
+                map.put(key, key);
+                if (key % 2 == 0) {
+                    map.remove(key - 1);
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            for (long key = 1; key <= 1000; key++) {
+                assertEquals(key, map.get(key));
+            }
+        }
+        writer.join();
+    }
+
+    private static User user(String username, String email, String city) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        if (city != null) {
+            Address address = new Address();
+            address.setCity(city);
+            user.setAddress(address);
+        }
+        return user;
+    }
+}
@@ -1,17 +1,23 @@
 package com.geekuz.testing;
 
+import com.geekuz.store.LogStore;
+import com.geekuz.store.LogStoreOptions;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,23 +27,42 @@ import static org.junit.jupiter.api.Assertions.*;
 public class IntegrationTesting {
 
     // Classes to be tested
-    static class UserRepository {
-        private final File storageFile;
+    static class UserRepository implements AutoCloseable {
+        private final LogStore log;
+        private final AtomicLong lastId;
         
-        public UserRepository(File storageFile) {
-            this.storageFile = storageFile;
+        public UserRepository(Path directory) throws IOException {
+            LogStoreOptions options = new LogStoreOptions();
+            options.setDirectory(directory);
+            log = new LogStore(options);
+            lastId = new AtomicLong(log.maxKey());
         }
         
+        // Returns once the user is on disk; concurrent saves share one force
         public void saveUser(String username, String email) throws IOException {
-            try (FileWriter writer = new FileWriter(storageFile, true)) {
-                writer.write(username + "," + email + "\n");
+            log.put(lastId.incrementAndGet(), (username + "," + email).getBytes(StandardCharsets.UTF_8));
+            try {
+                log.sync().join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException cause) {
+                    throw cause.getCause();
+                }
+                throw e;
             }
         }
         
-        public List<String> findAllUsernames() throws IOException {
-            return Files.lines(storageFile.toPath())
-                    .map(line -> line.split(",")[0])
-                    .collect(Collectors.toList());
+        public List<String> findAllUsernames() {
+            List<String> usernames = new ArrayList<>();
+            log.forEach((id, record) -> {
+                String line = new String(record, StandardCharsets.UTF_8);
+                usernames.add(line.substring(0, line.indexOf(',')));
+            });
+            return usernames;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            log.close();
         }
     }
     
@@ -69,17 +94,21 @@ public class IntegrationTesting {
     
     private UserRepository userRepository;
     private UserService userService;
-    private File userFile;
+    private Path userDir;
     
     @BeforeEach
     void setUp() throws IOException {
-        userFile = tempDir.resolve("users.csv").toFile();
-        userFile.createNewFile();
+        userDir = tempDir.resolve("users");
         
-        userRepository = new UserRepository(userFile);
+        userRepository = new UserRepository(userDir);
         userService = new UserService(userRepository);
     }
     
+    @AfterEach
+    void tearDown() throws IOException {
+        userRepository.close();
+    }
+    
     @Test
     @DisplayName("Register and retrieve users")
     void testRegisterAndRetrieveUsers() throws IOException {
@@ -114,11 +143,14 @@ public class IntegrationTesting {
         // Register a user
         userService.registerUser("testuser", "test@example.com");
         
-        // Read file contents directly to verify persistence
-        List<String> fileLines = Files.readAllLines(userFile.toPath());
+        // Reopen the repository, which reads the users back from its log files
+        userRepository.close();
+        userRepository = new UserRepository(userDir);
         
         // Verify file contents
-        assertEquals(1, fileLines.size());
-        assertEquals("testuser,test@example.com", fileLines.get(0));
+        try (Stream<Path> files = Files.list(userDir)) {
+            assertTrue(files.findAny().isPresent());
+        }
+        assertEquals(List.of("testuser"), userRepository.findAllUsernames());
     }
-}
\ No newline at end of file
+}